@@ -0,0 +1,149 @@
+package IBM.Colombia.Cia.S.C.A.IBM.application.controller;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.service.AvatarService;
+import IBM.Colombia.Cia.S.C.A.IBM.application.service.AvatarService.Avatar;
+import IBM.Colombia.Cia.S.C.A.IBM.application.service.AvatarVariantService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Avatar del usuario como imagen binaria (no envuelto en ApiResponse). El id es el opaco que
+ * devuelve el login (ver AvatarService); un id desconocido responde 404 sin más detalle.
+ * Soporta ETag/If-None-Match (304), una sola Range (206) y, cuando la imagen está en disco,
+ * el sendfile de Tomcat o FileChannel.transferTo para no copiarla por el heap.
+ */
+@RestController
+@RequestMapping("/api/users")
+public class AvatarController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    @Autowired
+    private AvatarService avatarService;
+
+    @Value("${avatar.cache.max-age:365d}")
+    private Duration maxAge;
+
+    @Autowired
+    private AvatarVariantService avatarVariantService;
+
+    @GetMapping("/{id}/avatar")
+    public void avatar(@PathVariable("id") String id,
+                       @RequestParam(value = "size", required = false) Integer size,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Avatar original = avatarService.find(id);
+        if (original == null) {
+            response.setStatus(HttpStatus.NOT_FOUND.value());
+            return;
+        }
+        // Variante más cercana al tamaño pedido; el original (pendiente) si aún no está generada
+        AvatarVariantService.Variant variant = size != null && size > 0
+                ? avatarVariantService.variant(original, size)
+                : new AvatarVariantService.Variant(original, false);
+        Avatar avatar = variant.avatar();
+
+        // El id va ligado a la versión de la foto: el contenido es inmutable.
+        // Si se sirvió el original en lugar de la variante, no se fija por mucho tiempo
+        response.setHeader(HttpHeaders.CACHE_CONTROL, !variant.pending()
+                ? "public, max-age=" + maxAge.toSeconds() + ", immutable"
+                : "no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(avatar.etag())) {
+            return;
+        }
+
+        long length = avatar.length();
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && ifRangeMatches(request, avatar)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();
+            }
+            // Varios rangos se responden con la imagen completa (permitido por RFC 9110)
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(avatar.mimeType());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        write(avatar, start, count, request, response);
+    }
+
+    private void write(Avatar avatar, long start, long count,
+                       HttpServletRequest request, HttpServletResponse response) throws IOException {
+        // Un fichero sustituido en disco no corresponde al ETag ni a la longitud ya enviados: memoria
+        Path file = avatar.usableFile();
+        if (file != null) {
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                // Tomcat envía el fichero con sendfile al terminar la petición
+                request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+                request.setAttribute(SENDFILE_START, start);
+                request.setAttribute(SENDFILE_END, start + count);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+                long position = start;
+                long remaining = count;
+                while (remaining > 0) {
+                    long sent = channel.transferTo(position, remaining, target);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    position += sent;
+                    remaining -= sent;
+                }
+            }
+            return;
+        }
+        OutputStream out = response.getOutputStream();
+        out.write(avatar.data(), (int) start, (int) count);
+    }
+
+    // If-Range con un ETag distinto: se ignora la Range y se envía la versión actual completa
+    private static boolean ifRangeMatches(HttpServletRequest request, Avatar avatar) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        return ifRange == null || ifRange.equals(avatar.etag());
+    }
+}
@@ -0,0 +1,39 @@
+package IBM.Colombia.Cia.S.C.A.IBM.application.controller;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.LatencyMetrics;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/metrics")
+public class MetricsController {
+
+    @Autowired
+    private LatencyMetrics latencyMetrics;
+
+    @Autowired
+    private List<MetricsSource> metricsSources;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> metrics() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("latency", latencyMetrics.snapshot());
+        for (MetricsSource source : metricsSources) {
+            response.put(source.getMetricsName(), source.getMetrics());
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/latency")
+    public ResponseEntity<List<Map<String, Object>>> latency() {
+        return ResponseEntity.ok(latencyMetrics.snapshot());
+    }
+}
@@ -1,5 +1,6 @@
 package IBM.Colombia.Cia.S.C.A.IBM.application.controller;
 
+import IBM.Colombia.Cia.S.C.A.IBM.shared.ConstantBody;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class TestController {
 
     @GetMapping("/test")
+    @ConstantBody
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Application layer controller funcionando");
     }
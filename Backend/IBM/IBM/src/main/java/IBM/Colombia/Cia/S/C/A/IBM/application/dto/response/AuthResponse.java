@@ -1,5 +1,7 @@
 package IBM.Colombia.Cia.S.C.A.IBM.application.dto.response;
 
+import IBM.Colombia.Cia.S.C.A.IBM.shared.Sensitive;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -18,6 +20,7 @@ public class AuthResponse {
     @NoArgsConstructor
     @AllArgsConstructor
     public static class TokenInfo {
+        @Sensitive
         private String token;
         private String type = "Bearer";
     }
@@ -30,7 +33,13 @@ public class AuthResponse {
         private String firstName;
         private String lastName;
         private int age;
-        private String profilePhoto;
+        // Se serializa como data URI; en modo streaming se codifica desde los bytes.
+        // Solo se incluye con auth.response.avatar-inline=true (clientes antiguos)
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private ProfilePhoto profilePhoto;
         private String video;
+        // URL de /api/users/{id}/avatar con un id opaco que cambia con la foto; cacheable por el navegador
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        private String avatarUrl;
     }
 }
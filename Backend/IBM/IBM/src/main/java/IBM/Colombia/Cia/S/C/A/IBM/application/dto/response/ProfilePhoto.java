@@ -0,0 +1,127 @@
+package IBM.Colombia.Cia.S.C.A.IBM.application.dto.response;
+
+import IBM.Colombia.Cia.S.C.A.IBM.shared.ImageMimeTypes;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+
+import java.io.IOException;
+
+/**
+ * Foto de perfil en una de dos formas: la data URI original (texto) o los bytes de la imagen.
+ * En JSON ambas se serializan como la misma data URI "data:<mime>;base64,...", pero la forma
+ * binaria se codifica por bloques directamente en la salida de Jackson, sin construir el String.
+ * En formatos con binario nativo (CBOR, Smile) se escriben los bytes de la imagen sin Base64.
+ */
+@JsonSerialize(using = ProfilePhoto.Serializer.class)
+public final class ProfilePhoto {
+
+    private final String dataUri;
+    private final String mimeType;
+    private final byte[] data;
+
+    private ProfilePhoto(String dataUri, String mimeType, byte[] data) {
+        this.dataUri = dataUri;
+        this.mimeType = mimeType;
+        this.data = data;
+    }
+
+    public static ProfilePhoto ofDataUri(String dataUri) {
+        return dataUri == null ? null : new ProfilePhoto(dataUri, null, null);
+    }
+
+    // El tipo llega del backend: solo se conserva si es una imagen conocida (ver ImageMimeTypes)
+    public static ProfilePhoto ofBytes(String mimeType, byte[] data) {
+        return data == null ? null : new ProfilePhoto(null, ImageMimeTypes.sanitize(mimeType, data), data);
+    }
+
+    public boolean isBinary() {
+        return data != null;
+    }
+
+    public String getMimeType() {
+        return mimeType;
+    }
+
+    // Bytes de la imagen (solo forma binaria); no se copian
+    public byte[] getData() {
+        return data;
+    }
+
+    public int length() {
+        return data != null ? data.length : dataUri.length();
+    }
+
+    // Materializa la data URI; solo para llamadores que necesitan el texto completo
+    public String toDataUri() {
+        if (dataUri != null) {
+            return dataUri;
+        }
+        return "data:" + mimeType + ";base64," + java.util.Base64.getEncoder().encodeToString(data);
+    }
+
+    @Override
+    public String toString() {
+        return isBinary()
+                ? "ProfilePhoto(" + mimeType + ", " + data.length + " bytes)"
+                : "ProfilePhoto(dataUri, " + dataUri.length() + " chars)";
+    }
+
+    public static class Serializer extends JsonSerializer<ProfilePhoto> {
+
+        private static final char[] ALPHABET =
+                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/".toCharArray();
+        private static final int CHUNK_BYTES = 3 * 1024;
+
+        @Override
+        public void serialize(ProfilePhoto photo, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            if (gen.canWriteBinaryNatively()) {
+                gen.writeBinary(photo.isBinary() ? photo.data : decodeDataUri(photo.dataUri));
+                return;
+            }
+            if (!photo.isBinary()) {
+                gen.writeString(photo.dataUri);
+                return;
+            }
+            // writeRawValue abre el valor (separadores incluidos); el resto se escribe en bloques.
+            // mimeType viene de la lista de ImageMimeTypes, así que no necesita escape JSON
+            gen.writeRawValue("\"data:" + photo.mimeType + ";base64,");
+            char[] chunk = new char[CHUNK_BYTES / 3 * 4];
+            byte[] data = photo.data;
+            for (int offset = 0; offset < data.length; offset += CHUNK_BYTES) {
+                int end = Math.min(data.length, offset + CHUNK_BYTES);
+                int written = encode(data, offset, end, chunk);
+                gen.writeRaw(chunk, 0, written);
+            }
+            gen.writeRaw('"');
+        }
+
+        // "data:<mime>;base64,<datos>" o Base64 sin prefijo
+        private static byte[] decodeDataUri(String dataUri) {
+            int comma = dataUri.startsWith("data:") ? dataUri.indexOf(',') : -1;
+            return java.util.Base64.getMimeDecoder().decode(comma >= 0 ? dataUri.substring(comma + 1) : dataUri);
+        }
+
+        private static int encode(byte[] src, int from, int to, char[] dst) {
+            int out = 0;
+            int i = from;
+            for (; i + 2 < to; i += 3) {
+                int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+                dst[out++] = ALPHABET[bits >>> 18];
+                dst[out++] = ALPHABET[(bits >>> 12) & 0x3F];
+                dst[out++] = ALPHABET[(bits >>> 6) & 0x3F];
+                dst[out++] = ALPHABET[bits & 0x3F];
+            }
+            int remaining = to - i;
+            if (remaining > 0) {
+                int bits = (src[i] & 0xFF) << 16 | (remaining == 2 ? (src[i + 1] & 0xFF) << 8 : 0);
+                dst[out++] = ALPHABET[bits >>> 18];
+                dst[out++] = ALPHABET[(bits >>> 12) & 0x3F];
+                dst[out++] = remaining == 2 ? ALPHABET[(bits >>> 6) & 0x3F] : '=';
+                dst[out++] = '=';
+            }
+            return out;
+        }
+    }
+}
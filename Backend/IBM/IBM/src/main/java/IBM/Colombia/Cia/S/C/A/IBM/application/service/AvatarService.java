@@ -0,0 +1,326 @@
+package IBM.Colombia.Cia.S.C.A.IBM.application.service;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ProfilePhoto;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import IBM.Colombia.Cia.S.C.A.IBM.shared.ImageMimeTypes;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Avatares servidos por /api/users/{id}/avatar.
+ * El login registra la foto del perfil SOAP del usuario y devuelve su URL. El id es opaco: un
+ * HMAC del usuario y de la versión (ETag) de la imagen con avatar.id.secret, así que no revela el
+ * usuario, no se puede adivinar sin haber hecho login y cambia con la foto; el navegador la cachea
+ * de forma indefinida. La foto se guarda en image.storage.path/avatars con el id como nombre: la
+ * URL guardada por el cliente sigue resolviendo tras un reinicio, tras salir del LRU o en otra
+ * instancia que comparta el directorio. Las fotos idénticas comparten la misma instancia.
+ */
+@Slf4j
+@Service
+public class AvatarService implements MetricsSource {
+
+    private static final int ETAG_BYTES = 16;
+    private static final int ID_BYTES = 16;
+    // Base64 URL-safe sin relleno de ID_BYTES bytes
+    private static final int ID_LENGTH = 22;
+    private static final String AVATARS_DIRECTORY = "avatars";
+    // Data URIs ya decodificadas; las del mock y las de la caché de perfiles se repiten
+    private static final int MAX_DECODED_DATA_URIS = 64;
+
+    // file != null: la imagen está en disco y puede enviarse con sendfile/transferTo mientras el
+    // fichero siga siendo el que se leyó (fileModified < 0: no coincidía ya al crear el avatar)
+    public record Avatar(String mimeType, byte[] data, Path file, String etag, long fileModified) {
+
+        public Avatar(String mimeType, byte[] data, Path file, String etag) {
+            this(mimeType, data, file, etag, modifiedIfMatches(file, data.length));
+        }
+
+        public long length() {
+            return data.length;
+        }
+
+        /**
+         * El fichero si todavía tiene el tamaño y la fecha de modificación de cuando se leyeron
+         * los bytes; null si se sustituyó después (Content-Length y ETag son de data).
+         */
+        public Path usableFile() {
+            if (file == null || fileModified < 0) {
+                return null;
+            }
+            return modifiedIfMatches(file, data.length) == fileModified ? file : null;
+        }
+
+        private static long modifiedIfMatches(Path file, long length) {
+            if (file == null) {
+                return -1;
+            }
+            try {
+                BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                return attributes.size() == length ? attributes.lastModifiedTime().toMillis() : -1;
+            } catch (IOException e) {
+                return -1;
+            }
+        }
+
+        // Valor del ETag sin comillas, usado como versión en la URL
+        public String version() {
+            return etag.substring(1, etag.length() - 1);
+        }
+    }
+
+    @Autowired
+    private ImageBase64Service imageBase64Service;
+
+    @Autowired
+    private AvatarVariantService avatarVariantService;
+
+    // Id opaco -> avatar; lo que el LRU descarta se vuelve a leer de disco
+    private final Map<String, Avatar> avatarsById;
+    private final ThreadLocal<Mac> idMac;
+    private final Path storagePath;
+    private final Map<String, Avatar> avatarsByDataUri;
+    private final LongAdder registrations = new LongAdder();
+    private final LongAdder decodes = new LongAdder();
+    private final LongAdder diskWrites = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+
+    public AvatarService(@Value("${avatar.registry.max-users:10000}") int maxUsers,
+                         @Value("${avatar.id.secret:${jwt.secret}}") String idSecret,
+                         @Value("${image.storage.path:./images}") String storagePath) {
+        this.avatarsById = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Avatar> eldest) {
+                return size() > maxUsers;
+            }
+        };
+        this.avatarsByDataUri = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Avatar> eldest) {
+                return size() > MAX_DECODED_DATA_URIS;
+            }
+        };
+        this.storagePath = Paths.get(storagePath, AVATARS_DIRECTORY);
+        // Secreto configurado: el mismo id en todas las instancias y tras un reinicio
+        SecretKeySpec key = new SecretKeySpec(idSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.idMac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 no disponible", e);
+            }
+        });
+    }
+
+    public record Registration(String id, Avatar avatar) {
+        public String url() {
+            return "/api/users/" + id + "/avatar";
+        }
+    }
+
+    /**
+     * Registra la foto del usuario y devuelve su id opaco, o null si el perfil no trae foto.
+     */
+    public Registration register(String username, ProfilePhoto photo) {
+        Avatar avatar = toAvatar(photo);
+        if (avatar == null) {
+            return null;
+        }
+        registrations.increment();
+        String id = idFor(username, avatar);
+        Avatar previous;
+        synchronized (avatarsById) {
+            previous = avatarsById.put(id, avatar);
+        }
+        // Las miniaturas se generan en segundo plano, antes de que el cliente las pida
+        if (previous != avatar) {
+            persist(id, avatar);
+            avatarVariantService.prepare(avatar);
+        }
+        return new Registration(id, avatar);
+    }
+
+    // null si el id no corresponde a ningún avatar registrado, en memoria ni en disco
+    public Avatar find(String id) {
+        Avatar avatar;
+        synchronized (avatarsById) {
+            avatar = avatarsById.get(id);
+        }
+        if (avatar != null || !isWellFormed(id)) {
+            return avatar;
+        }
+        avatar = load(id);
+        if (avatar != null) {
+            synchronized (avatarsById) {
+                avatarsById.putIfAbsent(id, avatar);
+            }
+        }
+        return avatar;
+    }
+
+    // Base64 URL-safe sin relleno: 22 caracteres, válido tal cual en un segmento de ruta.
+    // El prefijo separa este uso del secreto de cualquier otro HMAC con la misma clave
+    private String idFor(String username, Avatar avatar) {
+        byte[] mac = idMac.get().doFinal(("avatar\n" + username + '\n' + avatar.version())
+                .getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(mac, ID_BYTES));
+    }
+
+    // El id se usa como nombre de fichero: solo se acepta la forma que genera idFor
+    private static boolean isWellFormed(String id) {
+        if (id == null || id.length() != ID_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < ID_LENGTH; i++) {
+            char c = id.charAt(i);
+            boolean valid = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_';
+            if (!valid) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // El contenido de un id no cambia nunca (la versión forma parte del id): se escribe una sola vez
+    private void persist(String id, Avatar avatar) {
+        Path file = storagePath.resolve(id);
+        if (Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            Files.createDirectories(storagePath);
+            Path temp = Files.createTempFile(storagePath, "avatar-", ".tmp");
+            try {
+                Files.write(temp, avatar.data());
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                diskWrites.increment();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            // Sin copia en disco el avatar se sigue sirviendo mientras esté en memoria
+            log.warn("⚠️ No se pudo guardar el avatar {}: {}", id, e.getMessage());
+        }
+    }
+
+    private Avatar load(String id) {
+        Path file = storagePath.resolve(id);
+        try {
+            byte[] data = Files.readAllBytes(file);
+            diskHits.increment();
+            return newAvatar(null, data, file);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo leer el avatar {}: {}", id, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "avatars";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (avatarsById) {
+            metrics.put("registered", avatarsById.size());
+        }
+        metrics.put("registrations", registrations.sum());
+        metrics.put("decodes", decodes.sum());
+        metrics.put("diskWrites", diskWrites.sum());
+        metrics.put("diskHits", diskHits.sum());
+        return metrics;
+    }
+
+    private Avatar toAvatar(ProfilePhoto photo) {
+        if (photo == null || photo.length() == 0) {
+            return null;
+        }
+        if (photo.isBinary()) {
+            return newAvatar(photo.getMimeType(), photo.getData(), null);
+        }
+        String dataUri = photo.toDataUri();
+        synchronized (avatarsByDataUri) {
+            Avatar cached = avatarsByDataUri.get(dataUri);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        Avatar avatar = decode(dataUri);
+        if (avatar != null) {
+            synchronized (avatarsByDataUri) {
+                avatarsByDataUri.put(dataUri, avatar);
+            }
+        }
+        return avatar;
+    }
+
+    private Avatar decode(String dataUri) {
+        // Imagen precargada del classpath: se reutilizan sus bytes y su fichero
+        ImageBase64Service.EncodedImage image = imageBase64Service.findByDataUri(dataUri);
+        if (image != null) {
+            return newAvatar(image.mimeType(), image.data(), image.file());
+        }
+        decodes.increment();
+        String mimeType = null;
+        String base64 = dataUri;
+        int comma = dataUri.indexOf(',');
+        if (dataUri.startsWith("data:") && comma > 0) {
+            int semicolon = dataUri.indexOf(';');
+            mimeType = dataUri.substring(5, semicolon > 0 && semicolon < comma ? semicolon : comma);
+            base64 = dataUri.substring(comma + 1);
+        }
+        try {
+            byte[] data = Base64.getMimeDecoder().decode(base64);
+            return newAvatar(mimeType, data, null);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Foto de perfil con Base64 inválido: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Avatar newAvatar(String mimeType, byte[] data, Path file) {
+        if (data.length == 0) {
+            return null;
+        }
+        // El tipo se devuelve en Content-Type: solo se acepta el de una imagen conocida
+        return new Avatar(ImageMimeTypes.sanitize(mimeType, data), data, file, etagOf(data));
+    }
+
+    // ETag fuerte: los primeros 128 bits del SHA-256 del contenido
+    static String etagOf(byte[] data) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(data);
+            return "\"" + HexFormat.of().formatHex(hash, 0, ETAG_BYTES) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
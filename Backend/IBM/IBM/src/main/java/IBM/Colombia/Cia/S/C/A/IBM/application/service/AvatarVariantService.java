@@ -0,0 +1,324 @@
+package IBM.Colombia.Cia.S.C.A.IBM.application.service;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.service.AvatarService.Avatar;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Variantes redimensionadas de los avatares (image.variants.sizes, p. ej. 48/96/256 px).
+ * Cada avatar se decodifica una sola vez con ImageIO y se generan todos los tamaños en la misma
+ * tarea, en un pool acotado; las variantes se guardan en image.storage.path con el ETag del
+ * original en el nombre, así sobreviven a reinicios y nunca quedan obsoletas. Una petición que
+ * encuentra la variante sin generar espera como mucho image.variants.wait-ms y, si no llega a
+ * tiempo, recibe el original (marcado como pendiente) mientras la generación continúa.
+ * Las variantes en memoria se acotan por peso en bytes (image.variants.max-weight-bytes).
+ */
+@Service
+public class AvatarVariantService implements MetricsSource {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    // pending: se devuelve el original porque la variante aún no está lista (no cachear a largo plazo)
+    public record Variant(Avatar avatar, boolean pending) { }
+
+    private final Path storagePath;
+    private final int[] sizes;
+    private final long waitMs;
+    private final ThreadPoolExecutor executor;
+
+    // Variantes listas por "<etag>-<tamaño>"; un tamaño que no reduce la imagen apunta al original.
+    // LRU protegido por su monitor, junto con su peso total
+    private final LinkedHashMap<String, Avatar> ready = new LinkedHashMap<>(16, 0.75f, true);
+    private final long maxWeight;
+    private long readyWeight;
+    // Una sola generación por avatar aunque lleguen varias peticiones a la vez
+    private final ConcurrentHashMap<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder generated = new LongAdder();
+    private final LongAdder diskHits = new LongAdder();
+    private final LongAdder coldMisses = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    public AvatarVariantService(@Value("${image.storage.path:./images}") String storagePath,
+                                @Value("${image.variants.sizes:48,96,256}") int[] sizes,
+                                @Value("${image.variants.threads:2}") int threads,
+                                @Value("${image.variants.queue-capacity:64}") int queueCapacity,
+                                @Value("${image.variants.wait-ms:50}") long waitMs,
+                                @Value("${image.variants.max-weight-bytes:16777216}") long maxWeight) {
+        this.storagePath = Paths.get(storagePath, "variants");
+        this.sizes = Arrays.stream(sizes).filter(size -> size > 0).sorted().distinct().toArray();
+        this.waitMs = waitMs;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "avatar-variants-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.maxWeight = maxWeight;
+    }
+
+    /**
+     * Variante más cercana al tamaño pedido: el menor tamaño configurado que lo cubre, o el mayor
+     * si ninguno alcanza. Devuelve el original como pendiente si la variante no está lista dentro
+     * del timeout; un original que ya cabe en el tamaño pedido es la variante y no está pendiente.
+     */
+    public Variant variant(Avatar original, int requestedSize) {
+        if (sizes.length == 0) {
+            return new Variant(original, false);
+        }
+        String key = key(original, nearestSize(requestedSize));
+        Avatar variant = readyVariant(key);
+        if (variant != null) {
+            return new Variant(variant, false);
+        }
+        coldMisses.increment();
+        Variant pending = new Variant(original, true);
+        CompletableFuture<Void> generation = prepare(original);
+        if (generation == null) {
+            return pending;
+        }
+        try {
+            generation.get(waitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            timeouts.increment();
+        } catch (ExecutionException e) {
+            return pending;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return pending;
+        }
+        variant = readyVariant(key);
+        return variant != null ? new Variant(variant, false) : pending;
+    }
+
+    /**
+     * Programa la generación de todas las variantes del avatar (sin esperar).
+     * Devuelve null si el pool está saturado; la próxima petición lo volverá a intentar.
+     */
+    public CompletableFuture<Void> prepare(Avatar original) {
+        if (allReady(original)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(original.etag(), created);
+        if (existing != null) {
+            return existing;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generate(original);
+                    created.complete(null);
+                } catch (Exception | Error e) {
+                    failures.increment();
+                    System.err.println("Error al generar variantes de avatar " + original.etag() + " - " + e.getMessage());
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(original.etag(), created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            inFlight.remove(original.etag(), created);
+            created.completeExceptionally(e);
+            return null;
+        }
+        return created;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "avatarVariants";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        synchronized (ready) {
+            metrics.put("ready", ready.size());
+            metrics.put("weightBytes", readyWeight);
+        }
+        metrics.put("maxWeightBytes", maxWeight);
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("queued", executor.getQueue().size());
+        metrics.put("generated", generated.sum());
+        metrics.put("diskHits", diskHits.sum());
+        metrics.put("coldMisses", coldMisses.sum());
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("failures", failures.sum());
+        return metrics;
+    }
+
+    private void generate(Avatar original) throws IOException {
+        String format = "image/jpeg".equals(original.mimeType()) ? "jpg" : "png";
+        String mimeType = "jpg".equals(format) ? "image/jpeg" : "image/png";
+        // Primero lo que ya está en disco de una ejecución anterior
+        boolean missing = false;
+        for (int size : sizes) {
+            Path file = fileFor(original, size, format);
+            if (Files.isRegularFile(file)) {
+                byte[] bytes = Files.readAllBytes(file);
+                diskHits.increment();
+                store(key(original, size), new Avatar(mimeType, bytes, file, AvatarService.etagOf(bytes)));
+            } else {
+                missing = true;
+            }
+        }
+        if (!missing) {
+            return;
+        }
+
+        BufferedImage source = ImageIO.read(new ByteArrayInputStream(original.data()));
+        if (source == null) {
+            throw new IOException("Formato de imagen no soportado: " + original.mimeType());
+        }
+        Files.createDirectories(storagePath);
+        for (int size : sizes) {
+            String key = key(original, size);
+            if (readyVariant(key) != null) {
+                continue;
+            }
+            // Nunca se amplía: si el original ya cabe, la variante es el propio original
+            if (Math.max(source.getWidth(), source.getHeight()) <= size) {
+                store(key, original);
+                continue;
+            }
+            BufferedImage resized = resize(source, size);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (!ImageIO.write(resized, format, out)) {
+                throw new IOException("Sin escritor ImageIO para " + format);
+            }
+            byte[] bytes = out.toByteArray();
+            Path file = fileFor(original, size, format);
+            Path temp = Files.createTempFile(storagePath, "variant-", ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            generated.increment();
+            store(key, new Avatar(mimeType, bytes, file, AvatarService.etagOf(bytes)));
+        }
+    }
+
+    // Reducción por mitades hasta acercarse al tamaño final: mejor calidad que un solo paso bilineal
+    private static BufferedImage resize(BufferedImage source, int size) {
+        double scale = (double) size / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = step;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private int nearestSize(int requestedSize) {
+        for (int size : sizes) {
+            if (size >= requestedSize) {
+                return size;
+            }
+        }
+        return sizes[sizes.length - 1];
+    }
+
+    // Todas: el LRU puede haber descartado un tamaño y conservado otro
+    private boolean allReady(Avatar original) {
+        synchronized (ready) {
+            for (int size : sizes) {
+                if (!ready.containsKey(key(original, size))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private Avatar readyVariant(String key) {
+        synchronized (ready) {
+            return ready.get(key);
+        }
+    }
+
+    // Se descartan las menos usadas hasta volver al peso máximo; en disco siguen disponibles
+    private void store(String key, Avatar variant) {
+        long weight = weigh(variant);
+        if (weight > maxWeight) {
+            return;
+        }
+        synchronized (ready) {
+            Avatar previous = ready.put(key, variant);
+            if (previous != null) {
+                readyWeight -= weigh(previous);
+            }
+            readyWeight += weight;
+            Iterator<Avatar> eldest = ready.values().iterator();
+            while (readyWeight > maxWeight && eldest.hasNext()) {
+                readyWeight -= weigh(eldest.next());
+                eldest.remove();
+            }
+        }
+    }
+
+    // Las entradas que apuntan al original también lo retienen: se pesan igual
+    private static long weigh(Avatar avatar) {
+        return ENTRY_OVERHEAD_BYTES + avatar.length();
+    }
+
+    private Path fileFor(Avatar original, int size, String format) {
+        return storagePath.resolve(original.version() + "-" + size + "." + format);
+    }
+
+    private static String key(Avatar original, int size) {
+        return original.etag() + "-" + size;
+    }
+}
@@ -1,29 +1,90 @@
 package IBM.Colombia.Cia.S.C.A.IBM.application.service;
 
 
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.AsyncTransactionLogWriter;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.SegmentedLogStore;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.io.FileWriter;
+import org.springframework.util.unit.DataSize;
+
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Service
-public class FileLoggingService {
-    private static final String LOG_FILE_PATH = "src/main/resources/logs/transactions.txt";
-    private static final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+public class FileLoggingService implements MetricsSource {
+    private static final String LOG_BASE_NAME = "transactions";
 
-    public void writeTransactionLog(String transactionId, String message) {
-        try (FileWriter fw = new FileWriter(LOG_FILE_PATH, true);
-             PrintWriter pw = new PrintWriter(fw)) {
+    @Value("${transaction.log.directory:./logs}")
+    private String logDirectory;
+
+    @Value("${transaction.log.segment.max-size:16MB}")
+    private DataSize maxSegmentSize;
+
+    @Value("${transaction.log.segment.rollover-interval:24h}")
+    private Duration rolloverInterval;
+
+    @Value("${transaction.log.segment.max-count:30}")
+    private int maxSegments;
+
+    @Value("${transaction.log.segment.compress:true}")
+    private boolean compressSegments;
+
+    @Value("${transaction.log.segment.preallocate:true}")
+    private boolean preallocateSegments;
+
+    @Value("${transaction.log.async.enabled:true}")
+    private boolean asyncEnabled;
+
+    @Value("${transaction.log.async.queue-capacity:8192}")
+    private int queueCapacity;
 
-            String timestamp = LocalDateTime.now().format(formatter);
-            pw.println(String.format("[%s] TXN[%s] - %s", timestamp, transactionId, message));
+    @Value("${transaction.log.async.batch-size:256}")
+    private int batchSize;
 
+    @Value("${transaction.log.async.overflow-policy:SYNC}")
+    private AsyncTransactionLogWriter.OverflowPolicy overflowPolicy;
+
+    private SegmentedLogStore logStore;
+    private AsyncTransactionLogWriter logWriter;
+
+    @PostConstruct
+    public void init() {
+        SegmentedLogStore store = new SegmentedLogStore(Path.of(logDirectory), LOG_BASE_NAME,
+                maxSegmentSize.toBytes(), rolloverInterval, maxSegments, compressSegments, preallocateSegments);
+        try {
+            store.open();
         } catch (IOException e) {
-            System.err.println("❌ Error escribiendo log a archivo: " + e.getMessage());
+            System.err.println("❌ No se pudo abrir el directorio de logs " + logDirectory + ": " + e.getMessage());
+            return;
+        }
+        logStore = store;
+        // Sin hilo escritor las líneas se escriben de forma síncrona en el hilo que llama
+        logWriter = new AsyncTransactionLogWriter(store, queueCapacity, batchSize, overflowPolicy);
+        if (asyncEnabled) {
+            logWriter.start();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (logWriter != null) {
+            logWriter.close();
+        }
+        if (logStore != null) {
+            logStore.close();
+        }
+    }
+
+    public void writeTransactionLog(String transactionId, String message) {
+        if (logWriter != null) {
+            logWriter.append(transactionId, message);
         }
     }
 
@@ -51,4 +112,38 @@ public class FileLoggingService {
             System.err.println("❌ Error en writeTransactionEnd: " + e.getMessage());
         }
     }
+
+    // Métricas del escritor de logs (0 si el almacenamiento no se pudo abrir)
+    public int getQueueDepth() {
+        return logWriter != null ? logWriter.getQueueDepth() : 0;
+    }
+
+    public long getDroppedCount() {
+        return logWriter != null ? logWriter.getDroppedCount() : 0;
+    }
+
+    public long getSyncFallbackCount() {
+        return logWriter != null ? logWriter.getSyncFallbackCount() : 0;
+    }
+
+    public long getWrittenCount() {
+        return logWriter != null ? logWriter.getWrittenCount() : 0;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "transactionLog";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("async", asyncEnabled);
+        metrics.put("queueDepth", getQueueDepth());
+        metrics.put("queueCapacity", queueCapacity);
+        metrics.put("written", getWrittenCount());
+        metrics.put("dropped", getDroppedCount());
+        metrics.put("syncFallbacks", getSyncFallbackCount());
+        return metrics;
+    }
 }
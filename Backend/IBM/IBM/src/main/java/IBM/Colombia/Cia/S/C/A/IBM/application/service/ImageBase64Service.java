@@ -1,24 +1,211 @@
 package IBM.Colombia.Cia.S.C.A.IBM.application.service;
 
-import org.springframework.core.io.ClassPathResource;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.storage.ImageStore;
+import IBM.Colombia.Cia.S.C.A.IBM.shared.ImageMimeTypes;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import java.io.IOException;
-import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Imágenes ya codificadas como data URI.
+ * Las imágenes se leen de los ImageStore (sistema de ficheros en image.storage.path y después
+ * el classpath); al arrancar se precargan las que los almacenes listan y se codifica cada una
+ * una sola vez, con el tipo MIME real detectado por sus primeros bytes. Las llamadas
+ * posteriores devuelven la misma instancia inmutable. La caché se acota por peso; lo que no
+ * cabe (o todo, con preload=false) se carga bajo demanda en el primer acceso, y los cambios que
+ * notifica un almacén invalidan la entrada.
+ * Las imágenes de un almacén con caché propia (cachesContent, p. ej. el sistema de ficheros con
+ * su LRU fuera del heap) no se duplican aquí: se codifican desde su buffer en cada acceso.
+ */
+@Slf4j
 @Service
-public class ImageBase64Service {
+public class ImageBase64Service implements MetricsSource {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+
+    // Imagen codificada: bytes originales, tipo MIME y la data URI lista para responder.
+    // file solo existe cuando el classpath está desplegado en disco (permite sendfile)
+    public record EncodedImage(String resourcePath, String mimeType, byte[] data, String dataUri, Path file) {
+        long weight() {
+            return ENTRY_OVERHEAD_BYTES + data.length + 2L * dataUri.length();
+        }
+    }
+
+    private final List<ImageStore> imageStores;
+    private final boolean preload;
+    private final long maxWeight;
+
+    private final ConcurrentHashMap<String, EncodedImage> images = new ConcurrentHashMap<>();
+    // Índice por data URI de las mismas entradas: el String cachea su hash y la búsqueda no recorre la caché
+    private final ConcurrentHashMap<String, EncodedImage> imagesByDataUri = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder passThrough = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public ImageBase64Service(List<ImageStore> imageStores,
+                              @Value("${image.cache.preload:true}") boolean preload,
+                              @Value("${image.cache.max-weight-bytes:16777216}") long maxWeight) {
+        this.imageStores = imageStores;
+        this.preload = preload;
+        this.maxWeight = maxWeight;
+        for (ImageStore imageStore : imageStores) {
+            imageStore.addChangeListener(this::invalidate);
+        }
+    }
+
+    @PostConstruct
+    public void preloadImages() {
+        if (!preload) {
+            return;
+        }
+        for (ImageStore imageStore : imageStores) {
+            try {
+                for (String resourcePath : imageStore.list()) {
+                    if (imageStore.cachesContent()) {
+                        // Se calienta la caché del propio almacén, sin codificar ni copiar al heap
+                        imageStore.find(resourcePath);
+                        continue;
+                    }
+                    if (totalWeight.get() >= maxWeight) {
+                        break;
+                    }
+                    if (!images.containsKey(resourcePath)) {
+                        getImage(resourcePath);
+                    }
+                }
+            } catch (IOException e) {
+                System.err.println("Error al precargar imágenes de " + imageStore.getName() + " - " + e.getMessage());
+            }
+        }
+        log.info("🔥 Imágenes precargadas: {} ({} bytes)", images.size(), totalWeight.get());
+    }
+
     public String getImageAsBase64(String resourcePath) {
-        try {
-            ClassPathResource imgFile = new ClassPathResource(resourcePath);
-            try (InputStream is = imgFile.getInputStream()) {
-                byte[] bytes = is.readAllBytes();
-                String base64 = Base64.getEncoder().encodeToString(bytes);
-                return "data:image/jpeg;base64," + base64;
+        EncodedImage image = getImage(resourcePath);
+        return image != null ? image.dataUri() : null;
+    }
+
+    public EncodedImage getImage(String resourcePath) {
+        EncodedImage image = images.get(resourcePath);
+        if (image != null) {
+            hits.increment();
+            return image;
+        }
+        for (ImageStore imageStore : imageStores) {
+            try {
+                ImageStore.StoredImage stored = imageStore.find(resourcePath);
+                if (stored == null) {
+                    continue;
+                }
+                if (imageStore.cachesContent()) {
+                    // El almacén ya retiene la imagen: la copia codificada es temporal y no se cachea
+                    passThrough.increment();
+                    return encode(resourcePath, stored.toByteArray(), stored.file());
+                }
+                loads.increment();
+                image = encode(resourcePath, stored.toByteArray(), stored.file());
+                break;
+            } catch (IOException e) {
+                System.err.println("Error al leer el recurso de imagen: " + resourcePath
+                        + " (" + imageStore.getName() + ") - " + e.getMessage());
             }
-        } catch (IOException e) {
-            System.err.println("Error al leer el recurso de imagen: " + resourcePath + " - " + e.getMessage());
+        }
+        if (image == null) {
+            System.err.println("Recurso de imagen no encontrado: " + resourcePath);
+            return null;
+        }
+        // Dos cargas simultáneas de la misma imagen: se conserva la primera
+        EncodedImage existing = store(image);
+        return existing != null ? existing : image;
+    }
+
+    // Ruta cambiada en un almacén; null invalida todas las imágenes
+    public void invalidate(String resourcePath) {
+        if (resourcePath == null) {
+            images.keySet().forEach(this::remove);
+            insertionOrder.clear();
+            return;
+        }
+        if (remove(resourcePath)) {
+            insertionOrder.remove(resourcePath);
+        }
+    }
+
+    // Imagen cacheada cuya data URI es esta; null para las de un almacén con caché propia
+    public EncodedImage findByDataUri(String dataUri) {
+        return dataUri != null ? imagesByDataUri.get(dataUri) : null;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "imageCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", images.size());
+        metrics.put("weightBytes", totalWeight.get());
+        metrics.put("maxWeightBytes", maxWeight);
+        metrics.put("hits", hits.sum());
+        metrics.put("loads", loads.sum());
+        metrics.put("passThrough", passThrough.sum());
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+
+    private static EncodedImage encode(String resourcePath, byte[] bytes, Path file) {
+        String mimeType = ImageMimeTypes.detect(bytes);
+        String dataUri = "data:" + mimeType + ";base64," + Base64.getEncoder().encodeToString(bytes);
+        return new EncodedImage(resourcePath, mimeType, bytes, dataUri, file);
+    }
+
+    private EncodedImage store(EncodedImage image) {
+        if (image.weight() > maxWeight) {
             return null;
         }
+        EncodedImage existing = images.putIfAbsent(image.resourcePath(), image);
+        if (existing != null) {
+            return existing;
+        }
+        imagesByDataUri.put(image.dataUri(), image);
+        insertionOrder.offer(image.resourcePath());
+        totalWeight.addAndGet(image.weight());
+        // Se descartan primero las imágenes más antiguas hasta volver al peso máximo
+        while (totalWeight.get() > maxWeight) {
+            String oldest = insertionOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            if (remove(oldest)) {
+                evictions.increment();
+            }
+        }
+        return null;
+    }
+
+    private boolean remove(String resourcePath) {
+        EncodedImage removed = images.remove(resourcePath);
+        if (removed == null) {
+            return false;
+        }
+        imagesByDataUri.remove(removed.dataUri(), removed);
+        totalWeight.addAndGet(-removed.weight());
+        return true;
     }
 }
@@ -0,0 +1,142 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context;
+
+import org.slf4j.MDC;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Contexto de la transacción en curso: un único ID por petición HTTP, reflejado en el MDC.
+ * Las tareas que cambian de hilo deben envolverse con {@link #wrap} para conservar el ID, también
+ * las continuaciones de un CompletableFuture (thenApply, whenComplete...): se ejecutan en el hilo
+ * que completa el futuro, que ya ha restaurado su propio contexto.
+ */
+public final class TransactionContext {
+
+    public static final String HEADER = "X-Transaction-Id";
+    public static final String MDC_KEY = "transactionId";
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private TransactionContext() {
+    }
+
+    public static String currentId() {
+        return CURRENT.get();
+    }
+
+    // Abre el contexto en el hilo actual; al cerrar el Scope se restaura el anterior
+    public static Scope open(String transactionId) {
+        String previous = CURRENT.get();
+        set(transactionId);
+        return () -> set(previous);
+    }
+
+    public static Runnable wrap(Runnable task) {
+        Captured captured = capture();
+        return () -> {
+            Captured previous = capture();
+            captured.restore();
+            try {
+                task.run();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        Captured captured = capture();
+        return () -> {
+            Captured previous = capture();
+            captured.restore();
+            try {
+                return task.call();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public static <T> Supplier<T> wrap(Supplier<T> task) {
+        Captured captured = capture();
+        return () -> {
+            Captured previous = capture();
+            captured.restore();
+            try {
+                return task.get();
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public static <T, R> Function<T, R> wrap(Function<T, R> task) {
+        Captured captured = capture();
+        return value -> {
+            Captured previous = capture();
+            captured.restore();
+            try {
+                return task.apply(value);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    public static <T, U> BiConsumer<T, U> wrap(BiConsumer<T, U> task) {
+        Captured captured = capture();
+        return (first, second) -> {
+            Captured previous = capture();
+            captured.restore();
+            try {
+                task.accept(first, second);
+            } finally {
+                previous.restore();
+            }
+        };
+    }
+
+    // Executor que propaga el contexto del hilo que envía la tarea
+    public static Executor propagating(Executor delegate) {
+        return command -> delegate.execute(wrap(command));
+    }
+
+    private static void set(String transactionId) {
+        if (transactionId == null) {
+            CURRENT.remove();
+            MDC.remove(MDC_KEY);
+        } else {
+            CURRENT.set(transactionId);
+            MDC.put(MDC_KEY, transactionId);
+        }
+    }
+
+    private static Captured capture() {
+        return new Captured(CURRENT.get(), MDC.getCopyOfContextMap());
+    }
+
+    private record Captured(String transactionId, Map<String, String> mdc) {
+        void restore() {
+            if (mdc == null) {
+                MDC.clear();
+            } else {
+                MDC.setContextMap(mdc);
+            }
+            if (transactionId == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(transactionId);
+            }
+        }
+    }
+
+    public interface Scope extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,38 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Abre el contexto de transacción una sola vez por petición, antes de la cadena de seguridad.
+ * Respeta la cabecera X-Transaction-Id entrante y la devuelve en la respuesta.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TransactionContextFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String transactionId = request.getHeader(TransactionContext.HEADER);
+        if (!transactionIdGenerator.isValidIncoming(transactionId)) {
+            transactionId = transactionIdGenerator.nextId();
+        }
+        response.setHeader(TransactionContext.HEADER, transactionId);
+
+        try (TransactionContext.Scope ignored = TransactionContext.open(transactionId)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propaga el contexto de transacción a las tareas del executor gestionado por Spring.
+ */
+@Component
+public class TransactionContextTaskDecorator implements TaskDecorator {
+
+    @Override
+    @NonNull
+    public Runnable decorate(@NonNull Runnable runnable) {
+        return TransactionContext.wrap(runnable);
+    }
+}
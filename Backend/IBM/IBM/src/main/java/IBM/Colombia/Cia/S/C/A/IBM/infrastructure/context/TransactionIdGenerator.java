@@ -0,0 +1,47 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Genera IDs de transacción sin SecureRandom: prefijo de nodo + contador monotónico.
+ */
+@Component
+public class TransactionIdGenerator {
+
+    private static final int MAX_INCOMING_LENGTH = 64;
+
+    private final String prefix;
+    private final AtomicLong counter = new AtomicLong();
+
+    public TransactionIdGenerator(@Value("${transaction.id.node:}") String node) {
+        String nodeId = node.isBlank()
+                ? String.format("%06X", ThreadLocalRandom.current().nextInt(1 << 24))
+                : node.trim().toUpperCase(Locale.ROOT);
+        this.prefix = "TXN-" + nodeId + "-";
+    }
+
+    public String nextId() {
+        return prefix + Long.toHexString(counter.incrementAndGet()).toUpperCase(Locale.ROOT);
+    }
+
+    // Solo se aceptan IDs entrantes cortos y con caracteres seguros para logs y cabeceras
+    public boolean isValidIncoming(String transactionId) {
+        if (transactionId == null || transactionId.isEmpty() || transactionId.length() > MAX_INCOMING_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < transactionId.length(); i++) {
+            char c = transactionId.charAt(i);
+            boolean allowed = (c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == ':';
+            if (!allowed) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
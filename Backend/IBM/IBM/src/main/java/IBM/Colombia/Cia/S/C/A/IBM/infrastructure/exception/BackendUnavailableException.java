@@ -0,0 +1,28 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception;
+
+// El backend de autenticación no pudo atender la petición (circuito abierto, saturado o sin respuesta a tiempo)
+public class BackendUnavailableException extends RuntimeException {
+
+    public static final long DEFAULT_RETRY_AFTER_SECONDS = 5;
+
+    private final long retryAfterSeconds;
+
+    public BackendUnavailableException(String message) {
+        this(message, DEFAULT_RETRY_AFTER_SECONDS);
+    }
+
+    // Circuito abierto o bulkhead lleno: rechazo previsto, sin stack trace
+    public BackendUnavailableException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public BackendUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+        this.retryAfterSeconds = DEFAULT_RETRY_AFTER_SECONDS;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
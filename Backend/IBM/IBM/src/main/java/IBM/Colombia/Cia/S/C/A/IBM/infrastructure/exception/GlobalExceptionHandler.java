@@ -2,19 +2,25 @@ package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception;
 
 
 import IBM.Colombia.Cia.S.C.A.IBM.shared.ErrorDetailsValidation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
-import java.util.Date;
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    @Autowired
+    private RejectionResponses rejectionResponses;
+
     @ExceptionHandler(CustomException.class)
     public ResponseEntity<ErrorResponse> handleCustomException(CustomException ex) {
         ErrorResponse error = new ErrorResponse(
@@ -42,13 +48,17 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
     }
 
+    // Rechazos frecuentes: se escribe el sobre ya serializado en lugar de un Map por petición
     @ExceptionHandler(SoapAuthenticationException.class)
-    public ResponseEntity<Object> handleSoapAuthenticationException(SoapAuthenticationException ex, org.springframework.web.context.request.WebRequest request) {
-        Map<String, Object> response = new HashMap<>();
-        response.put("error", "Error de autenticación");
-        response.put("data", null);
+    public void handleSoapAuthenticationException(SoapAuthenticationException ex, HttpServletRequest request,
+                                                  HttpServletResponse response) throws IOException {
+        rejectionResponses.authenticationFailed(request, response);
+    }
 
-        return new ResponseEntity<>(response, HttpStatus.UNAUTHORIZED);
+    @ExceptionHandler(BackendUnavailableException.class)
+    public void handleBackendUnavailableException(BackendUnavailableException ex, HttpServletRequest request,
+                                                  HttpServletResponse response) throws IOException {
+        rejectionResponses.serviceUnavailable(request, response, ex.getRetryAfterSeconds());
     }
 
     @ExceptionHandler(IllegalArgumentException.class)
@@ -0,0 +1,76 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.RejectionLog;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config.ApiEnvelopeWriter;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config.ApiEnvelopeWriter.ErrorEnvelope;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+
+/**
+ * Camino barato de rechazo: sobres 401/429/503 preparados al arrancar y escritos como bytes,
+ * sin pasar por ApiResponseWrapper, con el rechazo contado en RejectionLog en lugar de logueado.
+ */
+@Component
+public class RejectionResponses {
+
+    private final ApiEnvelopeWriter envelopeWriter;
+    private final RejectionLog rejectionLog;
+
+    private final ErrorEnvelope authenticationFailed;
+    private final ErrorEnvelope unauthorized;
+    private final ErrorEnvelope tooManyRequests;
+    private final ErrorEnvelope serviceUnavailable;
+
+    public RejectionResponses(ApiEnvelopeWriter envelopeWriter, RejectionLog rejectionLog) {
+        this.envelopeWriter = envelopeWriter;
+        this.rejectionLog = rejectionLog;
+        this.authenticationFailed = envelopeWriter.errorEnvelope(HttpStatus.UNAUTHORIZED.value(),
+                "AUTHENTICATION_FAILED", "Error de autenticación");
+        this.unauthorized = envelopeWriter.errorEnvelope(HttpStatus.UNAUTHORIZED.value(),
+                "UNAUTHORIZED", "Token ausente o inválido");
+        this.tooManyRequests = envelopeWriter.errorEnvelope(HttpStatus.TOO_MANY_REQUESTS.value(),
+                "TOO_MANY_REQUESTS", "Demasiadas solicitudes, intente más tarde");
+        this.serviceUnavailable = envelopeWriter.errorEnvelope(HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "SERVICE_UNAVAILABLE", "Servicio de autenticación no disponible");
+    }
+
+    // Credenciales rechazadas por el backend SOAP
+    public void authenticationFailed(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(request, response, authenticationFailed, -1, "401 authenticationFailed");
+    }
+
+    // Sin JWT válido en una ruta protegida
+    public void unauthorized(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        write(request, response, unauthorized, -1, "401 unauthorized");
+    }
+
+    public void tooManyRequests(HttpServletRequest request, HttpServletResponse response, long retryAfterSeconds)
+            throws IOException {
+        write(request, response, tooManyRequests, retryAfterSeconds, "429 tooManyRequests");
+    }
+
+    public void serviceUnavailable(HttpServletRequest request, HttpServletResponse response, long retryAfterSeconds)
+            throws IOException {
+        write(request, response, serviceUnavailable, retryAfterSeconds, "503 serviceUnavailable");
+    }
+
+    private void write(HttpServletRequest request, HttpServletResponse response, ErrorEnvelope envelope,
+                       long retryAfterSeconds, String category) throws IOException {
+        rejectionLog.record(category);
+        if (response.isCommitted()) {
+            return;
+        }
+        response.setStatus(envelope.getStatus());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        if (retryAfterSeconds > 0) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        }
+        envelopeWriter.writeError(response.getOutputStream(), envelope, request.getRequestURI());
+    }
+}
@@ -1,12 +1,13 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception;
 
 public class SoapAuthenticationException extends RuntimeException {
+    // Rechazo conocido (credenciales inválidas): sin stack trace, que no aporta nada y es lo
+    // más caro de la excepción cuando llegan ráfagas de logins fallidos
     public SoapAuthenticationException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 
     public SoapAuthenticationException(String message, Throwable cause) {
         super(message, cause);
     }
 }
-
@@ -0,0 +1,244 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Escritor asíncrono del log de transacciones.
+ * Los hilos de petición encolan registros en una cola acotada sin bloqueos y un único hilo
+ * escritor los vacía por lotes hacia el almacenamiento segmentado.
+ */
+public class AsyncTransactionLogWriter {
+
+    public enum OverflowPolicy {
+        BLOCK,  // Espera hasta que haya espacio en la cola
+        DROP,   // Descarta el registro y lo contabiliza
+        SYNC    // Escribe directamente en el hilo que llama
+    }
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private record LogRecord(long timestamp, String transactionId, String message) { }
+
+    private final SegmentedLogStore store;
+    private final int capacity;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    private final ConcurrentLinkedQueue<LogRecord> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder syncFallbacks = new LongAdder();
+
+    // Estado exclusivo del hilo escritor
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    private final StringBuilder line = new StringBuilder(512);
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedTimestamp;
+
+    private Thread writerThread;
+    private volatile boolean running;
+    private volatile boolean writerParked;
+
+    public AsyncTransactionLogWriter(SegmentedLogStore store, int capacity, int batchSize, OverflowPolicy overflowPolicy) {
+        this.store = store;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::drainLoop, "txn-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    public void append(String transactionId, String message) {
+        LogRecord record = new LogRecord(System.currentTimeMillis(), transactionId, message);
+        if (!running) {
+            writeSync(record);
+            return;
+        }
+        if (!tryReserve()) {
+            switch (overflowPolicy) {
+                case DROP -> {
+                    dropped.increment();
+                    return;
+                }
+                case SYNC -> {
+                    syncFallbacks.increment();
+                    writeSync(record);
+                    return;
+                }
+                case BLOCK -> {
+                    while (!tryReserve()) {
+                        if (!running) {
+                            writeSync(record);
+                            return;
+                        }
+                        LockSupport.parkNanos(this, BLOCK_PARK_NANOS);
+                    }
+                }
+            }
+        }
+        queue.offer(record);
+        if (writerParked) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    // Vacía la cola pendiente antes de que se cierre el almacenamiento
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(SHUTDOWN_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!writerThread.isAlive()) {
+            // Registros encolados durante la parada
+            drainBatch(Integer.MAX_VALUE);
+        }
+    }
+
+    public int getQueueDepth() {
+        return depth.get();
+    }
+
+    public int getQueueCapacity() {
+        return capacity;
+    }
+
+    public long getWrittenCount() {
+        return written.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getSyncFallbackCount() {
+        return syncFallbacks.sum();
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = depth.get();
+            if (current >= capacity) {
+                return false;
+            }
+        } while (!depth.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void drainLoop() {
+        while (running || !queue.isEmpty()) {
+            if (drainBatch(batchSize) == 0) {
+                writerParked = true;
+                if (running && queue.isEmpty()) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                writerParked = false;
+            }
+        }
+    }
+
+    private int drainBatch(int maxRecords) {
+        int count = 0;
+        LogRecord record;
+        try {
+            while (count < maxRecords && (record = queue.poll()) != null) {
+                depth.decrementAndGet();
+                format(record, line);
+                encode(line);
+                count++;
+            }
+            if (count > 0) {
+                flushBuffer();
+                written.add(count);
+            }
+        } catch (IOException e) {
+            buffer.clear();
+            dropped.add(count);
+            System.err.println("❌ Error escribiendo log a archivo: " + e.getMessage());
+        }
+        return count;
+    }
+
+    private void format(LogRecord record, StringBuilder target) {
+        target.setLength(0);
+        target.append('[').append(timestamp(record.timestamp())).append("] TXN[")
+                .append(record.transactionId()).append("] - ")
+                .append(record.message()).append(LINE_SEPARATOR);
+    }
+
+    // El timestamp tiene resolución de segundos: se reutiliza mientras no cambie
+    private String timestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), zone).format(FORMATTER);
+        }
+        return cachedTimestamp;
+    }
+
+    private void encode(CharSequence text) throws IOException {
+        CharBuffer chars = CharBuffer.wrap(text);
+        encoder.reset();
+        while (encoder.encode(chars, buffer, true) == CoderResult.OVERFLOW) {
+            flushBuffer();
+        }
+        while (encoder.flush(buffer) == CoderResult.OVERFLOW) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        store.write(buffer);
+        buffer.clear();
+    }
+
+    private void writeSync(LogRecord record) {
+        String text = "[" + LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), zone).format(FORMATTER)
+                + "] TXN[" + record.transactionId() + "] - " + record.message() + LINE_SEPARATOR;
+        try {
+            store.write(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            System.err.println("❌ Error escribiendo log a archivo: " + e.getMessage());
+        }
+    }
+}
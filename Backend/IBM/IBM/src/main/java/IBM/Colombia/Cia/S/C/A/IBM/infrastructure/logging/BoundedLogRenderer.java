@@ -0,0 +1,265 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging;
+
+import IBM.Colombia.Cia.S.C.A.IBM.shared.Sensitive;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Renderiza argumentos y resultados para los logs con un presupuesto fijo de caracteres.
+ * Recorre DTOs, colecciones y arreglos campo por campo y se detiene al agotar el presupuesto,
+ * sin llamar a toString() sobre el grafo completo. Los campos sensibles se enmascaran.
+ */
+@Component
+public class BoundedLogRenderer {
+
+    private static final String APPLICATION_PACKAGE = "IBM.Colombia.Cia.S.C.A.IBM.";
+    private static final String MASK = "***";
+    private static final String ELLIPSIS = "...";
+    private static final int MAX_DEPTH = 4;
+    private static final String[] SENSITIVE_NAMES = {"password", "secret", "credential"};
+
+    private record FieldInfo(String name, Field field, boolean sensitive) { }
+
+    private static final ClassValue<FieldInfo[]> FIELDS = new ClassValue<>() {
+        @Override
+        protected FieldInfo[] computeValue(Class<?> type) {
+            List<FieldInfo> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.isSynthetic()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                    } catch (RuntimeException e) {
+                        continue;
+                    }
+                    boolean sensitive = field.isAnnotationPresent(Sensitive.class) || isSensitiveName(field.getName());
+                    fields.add(new FieldInfo(field.getName(), field, sensitive));
+                }
+            }
+            return fields.toArray(new FieldInfo[0]);
+        }
+    };
+
+    private final int maxLength;
+
+    public BoundedLogRenderer(@Value("${logging.aspect.detail-max-length:200}") int maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    public String render(Object value) {
+        Output out = new Output(maxLength);
+        write(out, value, 0);
+        return out.finish();
+    }
+
+    // Argumentos de un método: cada posición se renderiza con su nombre y se enmascara si es sensible
+    public String renderArguments(String[] names, boolean[] sensitive, Object[] args) {
+        Output out = new Output(maxLength);
+        out.append("[");
+        for (int i = 0; i < args.length && !out.full(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            if (names != null && i < names.length) {
+                out.append(names[i]).append("=");
+            }
+            if (sensitive != null && i < sensitive.length && sensitive[i]) {
+                out.append(MASK);
+            } else {
+                write(out, args[i], 1);
+            }
+        }
+        out.append("]");
+        return out.finish();
+    }
+
+    public boolean isSensitive(Parameter parameter, String name) {
+        return parameter.isAnnotationPresent(Sensitive.class) || (name != null && isSensitiveName(name));
+    }
+
+    private static boolean isSensitiveName(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        for (String keyword : SENSITIVE_NAMES) {
+            if (lower.contains(keyword)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void write(Output out, Object value, int depth) {
+        if (out.full()) {
+            return;
+        }
+        if (value == null) {
+            out.append("null");
+            return;
+        }
+        if (value instanceof CharSequence text) {
+            out.append(text);
+            return;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character
+                || value instanceof Enum<?> || value instanceof TemporalAccessor || value instanceof UUID) {
+            out.append(String.valueOf(value));
+            return;
+        }
+
+        Class<?> type = value.getClass();
+        if (depth >= MAX_DEPTH) {
+            out.append(type.getSimpleName()).append("(").append(ELLIPSIS).append(")");
+            return;
+        }
+        if (value instanceof HttpEntity<?> entity) {
+            writeEntity(out, entity, depth);
+        } else if (value instanceof Map<?, ?> map) {
+            writeMap(out, map, depth);
+        } else if (value instanceof Iterable<?> iterable) {
+            writeIterable(out, iterable, depth);
+        } else if (type.isArray()) {
+            writeArray(out, value, depth);
+        } else if (type.getName().startsWith(APPLICATION_PACKAGE) || type.isRecord()) {
+            writeFields(out, value, type, depth);
+        } else {
+            // Tipos ajenos a la aplicación: se acota la salida de su toString()
+            out.append(String.valueOf(value));
+        }
+    }
+
+    private void writeEntity(Output out, HttpEntity<?> entity, int depth) {
+        out.append("<");
+        if (entity instanceof ResponseEntity<?> response) {
+            out.append(String.valueOf(response.getStatusCode().value())).append(",");
+        }
+        write(out, entity.getBody(), depth + 1);
+        out.append(">");
+    }
+
+    private void writeMap(Output out, Map<?, ?> map, int depth) {
+        out.append("{");
+        boolean first = true;
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            if (out.full()) {
+                return;
+            }
+            if (!first) {
+                out.append(", ");
+            }
+            first = false;
+            Object key = entry.getKey();
+            write(out, key, depth + 1);
+            out.append("=");
+            if (key instanceof String name && isSensitiveName(name)) {
+                out.append(MASK);
+            } else {
+                write(out, entry.getValue(), depth + 1);
+            }
+        }
+        out.append("}");
+    }
+
+    private void writeIterable(Output out, Iterable<?> iterable, int depth) {
+        out.append("[");
+        boolean first = true;
+        for (Object element : iterable) {
+            if (out.full()) {
+                return;
+            }
+            if (!first) {
+                out.append(", ");
+            }
+            first = false;
+            write(out, element, depth + 1);
+        }
+        out.append("]");
+    }
+
+    private void writeArray(Output out, Object array, int depth) {
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        if (componentType == byte.class) {
+            // Contenido binario: solo el tamaño
+            out.append("byte[").append(String.valueOf(length)).append("]");
+            return;
+        }
+        out.append("[");
+        for (int i = 0; i < length && !out.full(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            write(out, Array.get(array, i), depth + 1);
+        }
+        out.append("]");
+    }
+
+    private void writeFields(Output out, Object value, Class<?> type, int depth) {
+        out.append(type.getSimpleName()).append("(");
+        FieldInfo[] fields = FIELDS.get(type);
+        for (int i = 0; i < fields.length && !out.full(); i++) {
+            FieldInfo info = fields[i];
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(info.name()).append("=");
+            if (info.sensitive()) {
+                out.append(MASK);
+                continue;
+            }
+            try {
+                write(out, info.field().get(value), depth + 1);
+            } catch (IllegalAccessException e) {
+                out.append("?");
+            }
+        }
+        out.append(")");
+    }
+
+    // Buffer con límite: las cadenas largas se copian solo hasta el presupuesto restante
+    private static final class Output {
+        private final StringBuilder builder;
+        private final int limit;
+        private boolean truncated;
+
+        Output(int limit) {
+            this.limit = limit;
+            this.builder = new StringBuilder(Math.min(limit, 256) + ELLIPSIS.length());
+        }
+
+        boolean full() {
+            return truncated;
+        }
+
+        Output append(CharSequence text) {
+            if (truncated) {
+                return this;
+            }
+            int remaining = limit - builder.length();
+            if (text.length() > remaining) {
+                builder.append(text, 0, remaining);
+                truncated = true;
+            } else {
+                builder.append(text);
+            }
+            return this;
+        }
+
+        String finish() {
+            return truncated ? builder.append(ELLIPSIS).toString() : builder.toString();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.BackendUnavailableException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.SoapAuthenticationException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de rechazos previstos (401, 429, 503) en lugar de una línea de log por evento.
+ * Cada categoría acumula en un LongAdder y, como mucho una vez por intervalo, el hilo que registra
+ * un rechazo escribe una línea resumen con lo acumulado desde la anterior. Durante una ráfaga de
+ * credenciales falsas el coste por petición es un incremento, no un mensaje formateado.
+ * Los totales acumulados se publican en /api/metrics.
+ */
+@Slf4j
+@Component
+public class RejectionLog implements MetricsSource {
+
+    private static final class Counter {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder sinceLastSummary = new LongAdder();
+    }
+
+    private final Map<String, Counter> counters = new ConcurrentHashMap<>();
+    private final long intervalMillis;
+    private final AtomicLong nextSummaryAt;
+
+    public RejectionLog(@Value("${logging.rejections.summary-interval:10s}") Duration interval) {
+        this.intervalMillis = interval.toMillis();
+        this.nextSummaryAt = new AtomicLong(System.currentTimeMillis() + intervalMillis);
+    }
+
+    // Credenciales rechazadas o backend no disponible: fallos esperados que no requieren stack trace
+    public static boolean isExpected(Throwable error) {
+        return error instanceof SoapAuthenticationException || error instanceof BackendUnavailableException;
+    }
+
+    /**
+     * Cuenta un rechazo; category identifica el origen, p. ej. "401 AuthService.login".
+     */
+    public void record(String category) {
+        Counter counter = counters.get(category);
+        if (counter == null) {
+            counter = counters.computeIfAbsent(category, key -> new Counter());
+        }
+        counter.total.increment();
+        counter.sinceLastSummary.increment();
+
+        long now = System.currentTimeMillis();
+        long due = nextSummaryAt.get();
+        // Un solo hilo gana el CAS y escribe el resumen del intervalo
+        if (now >= due && nextSummaryAt.compareAndSet(due, now + intervalMillis)) {
+            logSummary();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rejections";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("summaryIntervalMs", intervalMillis);
+        Map<String, Object> totals = new TreeMap<>();
+        counters.forEach((category, counter) -> totals.put(category, counter.total.sum()));
+        metrics.put("totals", totals);
+        return metrics;
+    }
+
+    private void logSummary() {
+        if (!log.isWarnEnabled()) {
+            counters.values().forEach(counter -> counter.sinceLastSummary.reset());
+            return;
+        }
+        StringBuilder summary = new StringBuilder();
+        new TreeMap<>(counters).forEach((category, counter) -> {
+            long count = counter.sinceLastSummary.sumThenReset();
+            if (count > 0) {
+                summary.append(summary.length() == 0 ? "" : ", ").append(category).append('=').append(count);
+            }
+        });
+        if (summary.length() > 0) {
+            log.warn("⚠️ Rechazos en los últimos {} ms: {}", intervalMillis, summary);
+        }
+    }
+}
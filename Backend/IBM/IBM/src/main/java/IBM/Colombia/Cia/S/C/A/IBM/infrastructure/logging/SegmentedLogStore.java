@@ -0,0 +1,292 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacenamiento del log de transacciones en segmentos rotativos.
+ * Cada segmento se preasigna a su tamaño máximo y se escribe con escrituras posicionales;
+ * al sellarse se recorta al tamaño real, se comprime con gzip en segundo plano y se aplica
+ * el límite de retención.
+ */
+public class SegmentedLogStore {
+
+    private static final DateTimeFormatter NAME_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final String ACTIVE_SUFFIX = ".log";
+    private static final String STANDBY_SUFFIX = ".standby";
+    private static final int ZERO_CHUNK = 1024 * 1024;
+
+    private final Path directory;
+    private final String baseName;
+    private final long maxSegmentBytes;
+    private final long rolloverIntervalMs;
+    private final int maxSegments;
+    private final boolean compress;
+    private final boolean preallocate;
+    private final Pattern segmentPattern;
+
+    // Compresión, retención y preasignación fuera del hilo de escritura
+    private final ExecutorService maintenance = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "txn-log-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // null entre un fallo al rotar y la siguiente escritura, que vuelve a abrir un segmento
+    private FileChannel channel;
+    private boolean closed;
+    private Path activePath;
+    private long position;
+    private long segmentDeadline;
+    private long sequence;
+    private CompletableFuture<Path> standby;
+
+    public SegmentedLogStore(Path directory, String baseName, long maxSegmentBytes, Duration rolloverInterval,
+                             int maxSegments, boolean compress, boolean preallocate) {
+        this.directory = directory;
+        this.baseName = baseName;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.rolloverIntervalMs = rolloverInterval.toMillis();
+        this.maxSegments = maxSegments;
+        this.compress = compress;
+        this.preallocate = preallocate;
+        this.segmentPattern = Pattern.compile(Pattern.quote(baseName) + "-\\d{8}-\\d{6}-(\\d+)\\.log(\\.gz)?");
+    }
+
+    public synchronized void open() throws IOException {
+        Files.createDirectories(directory);
+        recoverPreviousSegments();
+        openSegment();
+    }
+
+    public synchronized void write(ByteBuffer src) throws IOException {
+        if (closed) {
+            throw new IOException("El almacenamiento de logs está cerrado");
+        }
+        if (channel == null) {
+            openSegment();
+        }
+        int length = src.remaining();
+        long now = System.currentTimeMillis();
+        if (position > 0 && (position + length > maxSegmentBytes || now >= segmentDeadline)) {
+            rollover();
+        }
+        while (src.hasRemaining()) {
+            position += channel.write(src, position);
+        }
+    }
+
+    public synchronized void close() {
+        closed = true;
+        try {
+            if (channel != null) {
+                sealActive();
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error sellando segmento de log: " + e.getMessage());
+        }
+        maintenance.shutdown();
+        try {
+            maintenance.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            Files.deleteIfExists(directory.resolve(baseName + STANDBY_SUFFIX));
+        } catch (IOException e) {
+            System.err.println("❌ Error eliminando segmento preasignado: " + e.getMessage());
+        }
+    }
+
+    // Segmentos existentes ordenados del más antiguo al más reciente
+    public List<Path> listSegments() throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, baseName + "-*")) {
+            for (Path path : stream) {
+                if (segmentPattern.matcher(path.getFileName().toString()).matches()) {
+                    segments.add(path);
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(this::sequenceOf));
+        return segments;
+    }
+
+    public Path getActiveSegment() {
+        return activePath;
+    }
+
+    // Un fallo al sellar no impide abrir el siguiente segmento; si falla la apertura, la próxima
+    // escritura lo reintenta en lugar de dejar el almacenamiento sin canal
+    private void rollover() throws IOException {
+        try {
+            sealActive();
+        } catch (IOException e) {
+            System.err.println("❌ Error sellando segmento de log: " + e.getMessage());
+        }
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        sequence++;
+        activePath = directory.resolve(String.format("%s-%s-%06d%s",
+                baseName, LocalDateTime.now().format(NAME_FORMATTER), sequence, ACTIVE_SUFFIX));
+
+        Path prepared = takeStandby();
+        if (prepared != null) {
+            try {
+                Files.move(prepared, activePath, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Sin el segmento preparado se crea uno vacío
+                System.err.println("❌ Error usando segmento preasignado: " + e.getMessage());
+                Files.deleteIfExists(prepared);
+            }
+        }
+        channel = FileChannel.open(activePath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        position = 0;
+        segmentDeadline = System.currentTimeMillis() + rolloverIntervalMs;
+
+        if (preallocate) {
+            Path next = directory.resolve(baseName + STANDBY_SUFFIX);
+            standby = CompletableFuture.supplyAsync(() -> preallocateFile(next), maintenance);
+        }
+    }
+
+    // Solo se usa el segmento preparado si ya está listo: la rotación nunca espera al disco
+    private Path takeStandby() {
+        CompletableFuture<Path> current = standby;
+        standby = null;
+        if (current == null || !current.isDone() || current.isCompletedExceptionally()) {
+            if (current != null) {
+                current.cancel(false);
+            }
+            return null;
+        }
+        return current.join();
+    }
+
+    private Path preallocateFile(Path path) {
+        ByteBuffer zeros = ByteBuffer.allocateDirect(ZERO_CHUNK);
+        try (FileChannel fc = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            long written = 0;
+            while (written < maxSegmentBytes) {
+                zeros.clear();
+                zeros.limit((int) Math.min(ZERO_CHUNK, maxSegmentBytes - written));
+                written += fc.write(zeros, written);
+            }
+            fc.force(true);
+            return path;
+        } catch (IOException e) {
+            System.err.println("❌ Error preasignando segmento de log: " + e.getMessage());
+            return null;
+        }
+    }
+
+    // El canal se cierra siempre; un segmento que no se pudo recortar no se comprime (lo recorta
+    // recoverPreviousSegments en el siguiente arranque)
+    private void sealActive() throws IOException {
+        FileChannel sealed = channel;
+        Path sealedPath = activePath;
+        channel = null;
+        try (sealed) {
+            sealed.truncate(position);
+            sealed.force(false);
+        }
+        maintenance.execute(() -> {
+            compressSegment(sealedPath);
+            applyRetention();
+        });
+    }
+
+    private void compressSegment(Path segment) {
+        if (!compress || !Files.exists(segment)) {
+            return;
+        }
+        Path target = segment.resolveSibling(segment.getFileName() + ".gz");
+        Path partial = segment.resolveSibling(segment.getFileName() + ".gz.tmp");
+        try (InputStream in = Files.newInputStream(segment);
+             OutputStream out = new GZIPOutputStream(Files.newOutputStream(partial), 64 * 1024)) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            System.err.println("❌ Error comprimiendo segmento de log " + segment + ": " + e.getMessage());
+            return;
+        }
+        try {
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(segment);
+        } catch (IOException e) {
+            System.err.println("❌ Error finalizando compresión de " + segment + ": " + e.getMessage());
+        }
+    }
+
+    private void applyRetention() {
+        try {
+            List<Path> segments = listSegments();
+            for (int i = 0; i < segments.size() - maxSegments; i++) {
+                Files.deleteIfExists(segments.get(i));
+            }
+        } catch (IOException e) {
+            System.err.println("❌ Error aplicando retención de logs: " + e.getMessage());
+        }
+    }
+
+    // Segmentos que quedaron abiertos en una ejecución anterior: se recortan los ceros de la preasignación
+    private void recoverPreviousSegments() throws IOException {
+        Files.deleteIfExists(directory.resolve(baseName + STANDBY_SUFFIX));
+        for (Path segment : listSegments()) {
+            sequence = Math.max(sequence, sequenceOf(segment));
+            if (segment.getFileName().toString().endsWith(ACTIVE_SUFFIX)) {
+                try (FileChannel fc = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    fc.truncate(findDataEnd(fc));
+                }
+                maintenance.execute(() -> compressSegment(segment));
+            }
+        }
+        maintenance.execute(this::applyRetention);
+    }
+
+    private long findDataEnd(FileChannel fc) throws IOException {
+        ByteBuffer chunk = ByteBuffer.allocate(64 * 1024);
+        long end = fc.size();
+        while (end > 0) {
+            long start = Math.max(0, end - chunk.capacity());
+            chunk.clear();
+            chunk.limit((int) (end - start));
+            fc.read(chunk, start);
+            for (int i = chunk.position() - 1; i >= 0; i--) {
+                if (chunk.get(i) != 0) {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+
+    private long sequenceOf(Path segment) {
+        Matcher matcher = segmentPattern.matcher(segment.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+}
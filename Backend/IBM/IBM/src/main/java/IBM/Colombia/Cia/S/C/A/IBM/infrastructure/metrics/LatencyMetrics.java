@@ -0,0 +1,44 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de latencias por operación (Clase.metodo) y resultado.
+ */
+@Component
+public class LatencyMetrics {
+
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final long windowMillis;
+
+    public LatencyMetrics(@Value("${metrics.latency.window:60s}") Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    // Los llamadores frecuentes deben conservar la referencia devuelta
+    public LatencyRecorder recorder(String operation, String outcome) {
+        return recorders.computeIfAbsent(operation + "|" + outcome, key -> new LatencyRecorder(windowMillis));
+    }
+
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>();
+        new TreeMap<>(recorders).forEach((key, recorder) -> {
+            int separator = key.lastIndexOf('|');
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("operation", key.substring(0, separator));
+            entry.put("outcome", key.substring(separator + 1));
+            entry.putAll(recorder.snapshot());
+            result.add(entry);
+        });
+        return result;
+    }
+}
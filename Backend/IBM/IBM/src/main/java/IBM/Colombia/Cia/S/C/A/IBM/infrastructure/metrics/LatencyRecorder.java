@@ -0,0 +1,91 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Latencias de una operación: histograma acumulado y ventanas de tiempo consecutivas.
+ * La ventana activa se rota de forma perezosa al registrar o al leer; al rotar se reutiliza el
+ * histograma de la penúltima ventana en lugar de crear uno nuevo.
+ */
+public class LatencyRecorder {
+
+    private record Window(LatencyHistogram histogram, long startMillis) { }
+
+    private final long windowMillis;
+    private final LatencyHistogram total = new LatencyHistogram();
+    private final long createdMillis = System.currentTimeMillis();
+    private volatile Window current;
+    private volatile Window previous;
+    private volatile long previousEndMillis;
+
+    public LatencyRecorder(long windowMillis) {
+        this.windowMillis = windowMillis;
+        this.current = new Window(new LatencyHistogram(), createdMillis);
+    }
+
+    public void record(long nanos) {
+        total.record(nanos);
+        activeWindow(System.currentTimeMillis()).histogram().record(nanos);
+    }
+
+    public Map<String, Object> snapshot() {
+        long now = System.currentTimeMillis();
+        Window active = activeWindow(now);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("total", describe(total.snapshot(), now - createdMillis));
+        result.put("currentWindow", describe(active.histogram().snapshot(), now - active.startMillis()));
+        Window last = previous;
+        if (last != null) {
+            result.put("lastWindow", describe(last.histogram().snapshot(), previousEndMillis - last.startMillis()));
+        }
+        return result;
+    }
+
+    private Window activeWindow(long now) {
+        Window window = current;
+        if (now - window.startMillis() < windowMillis) {
+            return window;
+        }
+        synchronized (this) {
+            window = current;
+            if (now - window.startMillis() >= windowMillis) {
+                Window recycled = previous;
+                previous = window;
+                previousEndMillis = now;
+                // Un registro rezagado en la ventana reciclada solo descuadra esa muestra
+                LatencyHistogram histogram;
+                if (recycled != null) {
+                    histogram = recycled.histogram();
+                    histogram.reset();
+                } else {
+                    histogram = new LatencyHistogram();
+                }
+                window = new Window(histogram, now);
+                current = window;
+            }
+            return window;
+        }
+    }
+
+    private static Map<String, Object> describe(LatencyHistogram.Snapshot snapshot, long elapsedMillis) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("count", snapshot.count());
+        stats.put("throughputPerSec", elapsedMillis > 0 ? round(snapshot.count() * 1000.0 / elapsedMillis) : 0.0);
+        stats.put("meanMs", toMillis(snapshot.mean()));
+        stats.put("p50Ms", toMillis(snapshot.percentile(0.50)));
+        stats.put("p90Ms", toMillis(snapshot.percentile(0.90)));
+        stats.put("p99Ms", toMillis(snapshot.percentile(0.99)));
+        stats.put("p999Ms", toMillis(snapshot.percentile(0.999)));
+        stats.put("maxMs", toMillis(snapshot.max()));
+        return stats;
+    }
+
+    private static double toMillis(double nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+}
@@ -0,0 +1,13 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics;
+
+import java.util.Map;
+
+/**
+ * Componente que publica contadores propios en el endpoint de métricas.
+ */
+public interface MetricsSource {
+
+    String getMetricsName();
+
+    Map<String, Object> getMetrics();
+}
@@ -0,0 +1,199 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Circuit breaker con ventana deslizante de las últimas N llamadas.
+ * Se abre cuando la tasa de fallos o de llamadas lentas supera su umbral (con un mínimo de
+ * llamadas en la ventana); tras la espera en OPEN deja pasar unas pocas llamadas de prueba
+ * (HALF_OPEN) y vuelve a CLOSED solo si todas terminan bien. Cada permiso concedido debe acabar
+ * en onSuccess, onFailure o releasePermission; si una prueba se pierde igualmente, pasado
+ * halfOpenTimeoutMs se emite una nueva ronda de pruebas en lugar de quedar en HALF_OPEN.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private static final byte FAILED = 1;
+    private static final byte SLOW = 2;
+
+    private final String name;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final int failureRateThreshold;
+    private final int slowCallRateThreshold;
+    private final long slowCallNanos;
+    private final long openDurationMs;
+    private final int halfOpenProbes;
+    private final long halfOpenTimeoutMs;
+
+    // Estado protegido por el monitor de la instancia: las transiciones deben ser atómicas
+    private final byte[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int failedCount;
+    private int slowCount;
+    private State state = State.CLOSED;
+    private long openUntilMs;
+    private int probesIssued;
+    private int probesSucceeded;
+    private long probesIssuedAtMs;
+
+    private final LongAdder notPermitted = new LongAdder();
+    private final LongAdder openedCount = new LongAdder();
+
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, int failureRateThreshold,
+                          int slowCallRateThreshold, long slowCallMs, long openDurationMs, int halfOpenProbes,
+                          long halfOpenTimeoutMs) {
+        this.name = name;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.slowCallNanos = slowCallMs * 1_000_000L;
+        this.openDurationMs = openDurationMs;
+        this.halfOpenProbes = Math.max(1, halfOpenProbes);
+        this.halfOpenTimeoutMs = Math.max(1, halfOpenTimeoutMs);
+        this.window = new byte[this.windowSize];
+    }
+
+    /**
+     * Pide permiso para una llamada. Si el circuito está abierto devuelve los milisegundos
+     * que faltan para volver a probar; 0 significa que la llamada puede continuar.
+     */
+    public synchronized long tryAcquirePermission() {
+        long now = System.currentTimeMillis();
+        if (state == State.OPEN) {
+            if (now < openUntilMs) {
+                notPermitted.increment();
+                return openUntilMs - now;
+            }
+            state = State.HALF_OPEN;
+            startProbes(now);
+        }
+        if (state == State.HALF_OPEN) {
+            if (probesIssued >= halfOpenProbes) {
+                if (now - probesIssuedAtMs < halfOpenTimeoutMs) {
+                    notPermitted.increment();
+                    return Math.max(1, openDurationMs / 10);
+                }
+                // Pruebas sin resultado tras el timeout: se dan por perdidas y se repite la ronda
+                startProbes(now);
+            }
+            probesIssued++;
+        }
+        return 0;
+    }
+
+    /**
+     * Devuelve un permiso que no llegó a usarse (la llamada se rechazó antes de ir al backend),
+     * para que una prueba de HALF_OPEN no quede contada como emitida.
+     */
+    public synchronized void releasePermission() {
+        if (state == State.HALF_OPEN && probesIssued > probesSucceeded) {
+            probesIssued--;
+        }
+    }
+
+    public synchronized void onSuccess(long durationNanos) {
+        record(false, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized void onFailure(long durationNanos) {
+        record(true, durationNanos >= slowCallNanos);
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("state", state.name());
+        metrics.put("bufferedCalls", windowCount);
+        metrics.put("failureRate", rate(failedCount));
+        metrics.put("slowCallRate", rate(slowCount));
+        metrics.put("notPermitted", notPermitted.sum());
+        metrics.put("opened", openedCount.sum());
+        return metrics;
+    }
+
+    private void record(boolean failed, boolean slow) {
+        if (state == State.HALF_OPEN) {
+            // Una prueba fallida o lenta vuelve a abrir el circuito sin esperar a la ventana
+            if (failed || slow) {
+                open();
+                return;
+            }
+            if (++probesSucceeded >= halfOpenProbes) {
+                close();
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // Llamadas que empezaron antes de abrir el circuito: no cambian el estado
+            return;
+        }
+
+        if (windowCount == windowSize) {
+            byte evicted = window[windowIndex];
+            if ((evicted & FAILED) != 0) {
+                failedCount--;
+            }
+            if ((evicted & SLOW) != 0) {
+                slowCount--;
+            }
+        } else {
+            windowCount++;
+        }
+        byte outcome = (byte) ((failed ? FAILED : 0) | (slow ? SLOW : 0));
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % windowSize;
+        if (failed) {
+            failedCount++;
+        }
+        if (slow) {
+            slowCount++;
+        }
+
+        if (windowCount >= minimumCalls
+                && (rate(failedCount) >= failureRateThreshold || rate(slowCount) >= slowCallRateThreshold)) {
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openUntilMs = System.currentTimeMillis() + openDurationMs;
+        openedCount.increment();
+        resetWindow();
+    }
+
+    private void startProbes(long now) {
+        probesIssued = 0;
+        probesSucceeded = 0;
+        probesIssuedAtMs = now;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowIndex = 0;
+        windowCount = 0;
+        failedCount = 0;
+        slowCount = 0;
+    }
+
+    private int rate(int count) {
+        return windowCount == 0 ? 0 : count * 100 / windowCount;
+    }
+}
@@ -0,0 +1,127 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket por clave (IP, usuario...) sin bloqueos: cada cubo es un AtomicLong con el instante
+ * teórico en que volverá a estar lleno (GCRA, equivalente a un token bucket de "capacity" fichas
+ * que se reponen a capacity/period). Consumir una ficha es un compareAndSet.
+ * Un cubo lleno equivale a uno nuevo, así que se descarta sin perder estado; el barrido lo hace
+ * como mucho una vez por sweepInterval el hilo que consume. Con maxBuckets claves activas se
+ * adelanta el barrido (como mucho una vez por sweepInterval/10) y, si sigue sin haber sitio, la
+ * clave nueva pasa sin limitar y se cuenta como "overflowed": un cubo compartido permitiría a
+ * quien llena el mapa bloquear a todos los demás.
+ */
+public class TokenBucketLimiter {
+
+    private final int capacity;
+    private final Duration period;
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final int maxBuckets;
+    private final long sweepIntervalNanos;
+
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweepAt;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder overflowed = new LongAdder();
+    private final LongAdder expired = new LongAdder();
+    private final LongAdder forcedSweeps = new LongAdder();
+
+    public TokenBucketLimiter(int capacity, Duration period, int maxBuckets, Duration sweepInterval) {
+        if (capacity <= 0 || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Límite inválido: " + capacity + "/" + period);
+        }
+        this.capacity = capacity;
+        this.period = period;
+        this.intervalNanos = Math.max(1, period.toNanos() / capacity);
+        this.burstNanos = intervalNanos * capacity;
+        this.maxBuckets = maxBuckets;
+        this.sweepIntervalNanos = sweepInterval.toNanos();
+        this.nextSweepAt = new AtomicLong(System.nanoTime() + sweepIntervalNanos);
+    }
+
+    /**
+     * Consume una ficha del cubo de la clave. Devuelve 0 si se concede o, si no, los nanosegundos
+     * que faltan para que haya una ficha disponible.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        sweepIfDue(now);
+
+        AtomicLong bucket = buckets.get(key);
+        if (bucket == null) {
+            if (buckets.size() >= maxBuckets && !sweepWhenFull(now)) {
+                overflowed.increment();
+                allowed.increment();
+                return 0;
+            }
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+        }
+
+        while (true) {
+            long fullAt = bucket.get();
+            // Un cubo lleno empieza a contar desde ahora (max(fullAt, now) sin desbordamiento)
+            long base = fullAt - now > 0 ? fullAt : now;
+            long next = base + intervalNanos;
+            long waitNanos = next - now - burstNanos;
+            if (waitNanos > 0) {
+                rejected.increment();
+                return waitNanos;
+            }
+            if (bucket.compareAndSet(fullAt, next)) {
+                allowed.increment();
+                return 0;
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("capacity", capacity);
+        metrics.put("period", period.toString());
+        metrics.put("buckets", buckets.size());
+        metrics.put("maxBuckets", maxBuckets);
+        metrics.put("allowed", allowed.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("overflowed", overflowed.sum());
+        metrics.put("expired", expired.sum());
+        metrics.put("forcedSweeps", forcedSweeps.sum());
+        return metrics;
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweepAt.get();
+        if (now - due < 0 || !nextSweepAt.compareAndSet(due, now + sweepIntervalNanos)) {
+            return;
+        }
+        sweep(now);
+    }
+
+    // Mapa lleno: barrido anticipado si el último fue hace más de sweepInterval/10; true si hay sitio
+    private boolean sweepWhenFull(long now) {
+        long due = nextSweepAt.get();
+        long sinceLastSweep = now - (due - sweepIntervalNanos);
+        if (sinceLastSweep >= sweepIntervalNanos / 10 && nextSweepAt.compareAndSet(due, now + sweepIntervalNanos)) {
+            forcedSweeps.increment();
+            sweep(now);
+        }
+        return buckets.size() < maxBuckets;
+    }
+
+    private void sweep(long now) {
+        // remove(key, value): un cubo recreado mientras tanto no se pierde
+        buckets.forEach((key, bucket) -> {
+            if (bucket.get() - now <= 0 && buckets.remove(key, bucket)) {
+                expired.increment();
+            }
+        });
+    }
+}
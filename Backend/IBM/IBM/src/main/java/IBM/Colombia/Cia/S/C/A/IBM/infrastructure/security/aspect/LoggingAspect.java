@@ -2,21 +2,34 @@ package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.aspect;
 
 
 import IBM.Colombia.Cia.S.C.A.IBM.application.service.FileLoggingService;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionContext;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionIdGenerator;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.BoundedLogRenderer;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.RejectionLog;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.LatencyMetrics;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.LatencyRecorder;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
 
 import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
 import java.time.Instant;
-import java.util.UUID;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Aspect
 @Component
@@ -24,25 +37,97 @@ public class LoggingAspect {
     private static final Logger logger = LoggerFactory.getLogger(LoggingAspect.class);
 
     private enum OperationState {
-        STARTED("🚀", "Iniciando", "\u001B[34m"),
-        IN_PROGRESS("⚙️", "En proceso", "\u001B[36m"),
-        COMPLETED("✅", "Completado", "\u001B[32m"),
-        WARNING("⚠️", "Advertencia", "\u001B[33m"),
-        ERROR("❌", "Error", "\u001B[31m"),
-        TERMINATED("🛑", "Terminado", "\u001B[35m");
+        STARTED("🚀", "Iniciando", "\u001B[34m", true),
+        IN_PROGRESS("⚙️", "En proceso", "\u001B[36m", false),
+        COMPLETED("✅", "Completado", "\u001B[32m", true),
+        WARNING("⚠️", "Advertencia", "\u001B[33m", true),
+        ERROR("❌", "Error", "\u001B[31m", true),
+        TERMINATED("🛑", "Terminado", "\u001B[35m", false);
 
         final String emoji;
         final String description;
         final String color;
+        // Solo logear a archivo en estados importantes para evitar sobrecarga
+        final boolean logToFile;
         private static final String RESET = "\u001B[0m";
 
-        OperationState(String emoji, String description, String color) {
+        OperationState(String emoji, String description, String color, boolean logToFile) {
             this.emoji = emoji;
             this.description = description;
             this.color = color;
+            this.logToFile = logToFile;
         }
     }
 
+    // Datos de cada método interceptado, calculados una sola vez
+    private static final class JoinPointMetadata {
+        final String className;
+        final String methodName;
+        final boolean passThrough;
+        final boolean fileLogEnabled;
+        final String[] parameterNames;
+        final boolean[] sensitiveParameters;
+        // Histogramas de latencia por resultado; WARNING y ERROR se crean con el primer fallo
+        final LatencyRecorder completedLatency;
+        private final LatencyMetrics latencyMetrics;
+        private final String operation;
+        private volatile LatencyRecorder warningLatency;
+        private volatile LatencyRecorder errorLatency;
+        // Fragmento fijo de cada estado: "] | 🚀 Iniciando: Clase.metodo | ⏰ "
+        final String[] statePrefixes = new String[OperationState.values().length];
+
+        JoinPointMetadata(Class<?> declaringType, Method method, String[] parameterNames,
+                          BoundedLogRenderer renderer, LatencyMetrics latencyMetrics) {
+            String declaringTypeName = declaringType.getName();
+            this.className = declaringTypeName;
+            this.methodName = method.getName();
+            this.parameterNames = parameterNames;
+            Parameter[] parameters = method.getParameters();
+            this.sensitiveParameters = new boolean[parameters.length];
+            for (int i = 0; i < parameters.length; i++) {
+                String name = parameterNames != null && i < parameterNames.length ? parameterNames[i] : null;
+                sensitiveParameters[i] = renderer.isSensitive(parameters[i], name);
+            }
+            // Verificación adicional para evitar interceptar FileLoggingService
+            this.passThrough = FileLoggingService.class.isAssignableFrom(declaringType);
+            this.fileLogEnabled = !passThrough;
+            String simpleName = declaringTypeName.substring(declaringTypeName.lastIndexOf('.') + 1);
+            String operation = simpleName + "." + methodName;
+            this.completedLatency = latencyMetrics.recorder(operation, OperationState.COMPLETED.name());
+            this.latencyMetrics = latencyMetrics;
+            this.operation = operation;
+            for (OperationState state : OperationState.values()) {
+                statePrefixes[state.ordinal()] = "] | " + state.emoji + " " + state.description + ": "
+                        + simpleName + "." + methodName + " | ⏰ ";
+            }
+        }
+
+        // Sin sincronizar: LatencyMetrics devuelve siempre el mismo recorder para cada clave
+        LatencyRecorder failureLatency(OperationState state) {
+            if (state == OperationState.WARNING) {
+                LatencyRecorder recorder = warningLatency;
+                if (recorder == null) {
+                    warningLatency = recorder = latencyMetrics.recorder(operation, state.name());
+                }
+                return recorder;
+            }
+            LatencyRecorder recorder = errorLatency;
+            if (recorder == null) {
+                errorLatency = recorder = latencyMetrics.recorder(operation, state.name());
+            }
+            return recorder;
+        }
+    }
+
+    // Marca de tiempo ISO con precisión de milisegundos; la parte de segundos se reutiliza
+    private record SecondPrefix(long second, String prefix) { }
+
+    private static final int MAX_RETAINED_BUILDER = 8 * 1024;
+
+    private final Map<Method, JoinPointMetadata> metadataCache = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringBuilder> messageBuilder = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    private volatile SecondPrefix secondPrefix = new SecondPrefix(Long.MIN_VALUE, "");
+
     @Pointcut("(within(@org.springframework.web.bind.annotation.RestController *) || " +
             "within(@org.springframework.stereotype.Service *) || " +
             "within(@org.springframework.stereotype.Repository *)) && " +
@@ -51,54 +136,83 @@ public class LoggingAspect {
 
     @Around("springBeanPointcut()")
     public Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
-        String className = joinPoint.getSignature().getDeclaringTypeName();
-        String methodName = joinPoint.getSignature().getName();
-
-        // Verificación adicional para evitar interceptar FileLoggingService
-        if (className.contains("FileLoggingService")) {
+        JoinPointMetadata metadata = metadataFor(joinPoint);
+        if (metadata.passThrough) {
             return joinPoint.proceed();
         }
 
-        Object[] args = joinPoint.getArgs();
-
-        // 🔥 NUEVO: ID único de transacción
-        String transactionId = getOrCreateTransactionId();
-        long startTime = System.currentTimeMillis();
-
-        // 🔥 NUEVO: Contexto HTTP
-        String httpInfo = getHttpContext();
+        // 🔥 NUEVO: ID único de transacción (el filtro HTTP ya lo abrió; fuera de HTTP se crea aquí)
+        String transactionId = TransactionContext.currentId();
+        TransactionContext.Scope ownedScope = null;
+        if (transactionId == null) {
+            transactionId = transactionIdGenerator.nextId();
+            ownedScope = TransactionContext.open(transactionId);
+        }
+        long startTime = System.nanoTime();
 
-        MDC.put("transactionId", transactionId);
-        MDC.put("className", className);
-        MDC.put("methodName", methodName);
+        // Servicios anidados: se restaura el MDC del llamador al terminar
+        String callerClassName = MDC.get("className");
+        String callerMethodName = MDC.get("methodName");
+        MDC.put("className", metadata.className);
+        MDC.put("methodName", metadata.methodName);
 
+        boolean async = false;
         try {
-            logTransactionState(OperationState.STARTED, className, methodName, transactionId, httpInfo, args);
-            logTransactionState(OperationState.IN_PROGRESS, className, methodName, transactionId, httpInfo, null);
+            logTransactionState(OperationState.STARTED, metadata, transactionId, 0, null, joinPoint.getArgs());
+            logTransactionState(OperationState.IN_PROGRESS, metadata, transactionId, 0, null, null);
 
             Object result = joinPoint.proceed();
 
+            if (result instanceof CompletionStage<?> stage) {
+                // Método asíncrono: la latencia y el resultado son los del futuro, no los de crearlo
+                async = true;
+                String asyncTransactionId = transactionId;
+                stage.whenComplete(TransactionContext.wrap((value, error) -> {
+                    long elapsed = System.nanoTime() - startTime;
+                    if (error == null) {
+                        recordCompleted(metadata, asyncTransactionId, elapsed, value);
+                    } else {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                ? error.getCause() : error;
+                        recordFailure(metadata, asyncTransactionId, elapsed, cause);
+                    }
+                    logTransactionState(OperationState.TERMINATED, metadata, asyncTransactionId, toMillis(elapsed), null, null);
+                }));
+                return result;
+            }
+
             // 🔥 NUEVO: Duración calculada
-            long duration = System.currentTimeMillis() - startTime;
-            logTransactionState(OperationState.COMPLETED, className, methodName, transactionId,
-                    "Duration: " + duration + "ms", result);
+            recordCompleted(metadata, transactionId, System.nanoTime() - startTime, result);
 
             return result;
         } catch (Exception e) {
-            long duration = System.currentTimeMillis() - startTime;
-            String errorInfo = "Duration: " + duration + "ms | Error: " + e.getMessage();
-
-            if (e instanceof RuntimeException) {
-                logTransactionState(OperationState.WARNING, className, methodName, transactionId, errorInfo, null);
-            } else {
-                logTransactionState(OperationState.ERROR, className, methodName, transactionId, errorInfo, null);
-            }
+            recordFailure(metadata, transactionId, System.nanoTime() - startTime, e);
             throw e;
         } finally {
-            long totalDuration = System.currentTimeMillis() - startTime;
-            logTransactionState(OperationState.TERMINATED, className, methodName, transactionId,
-                    "Total Duration: " + totalDuration + "ms", null);
-            MDC.clear();
+            if (!async) {
+                long totalDuration = toMillis(System.nanoTime() - startTime);
+                logTransactionState(OperationState.TERMINATED, metadata, transactionId, totalDuration, null, null);
+            }
+            restoreMdc("className", callerClassName);
+            restoreMdc("methodName", callerMethodName);
+            if (ownedScope != null) {
+                ownedScope.close();
+            }
+        }
+    }
+
+    private void recordCompleted(JoinPointMetadata metadata, String transactionId, long elapsed, Object result) {
+        metadata.completedLatency.record(elapsed);
+        logTransactionState(OperationState.COMPLETED, metadata, transactionId, toMillis(elapsed), null, result);
+    }
+
+    private void recordFailure(JoinPointMetadata metadata, String transactionId, long elapsed, Throwable error) {
+        OperationState state = error instanceof RuntimeException ? OperationState.WARNING : OperationState.ERROR;
+        metadata.failureLatency(state).record(elapsed);
+        // Credenciales inválidas o backend caído: sin línea por evento. El rechazo lo cuenta
+        // RejectionResponses una sola vez al responder, no cada capa interceptada
+        if (!RejectionLog.isExpected(error)) {
+            logTransactionState(state, metadata, transactionId, toMillis(elapsed), error, null);
         }
     }
 
@@ -106,94 +220,156 @@ public class LoggingAspect {
     @Autowired
     private FileLoggingService fileLoggingService;
 
-    // Modificar logTransactionState para ser más eficiente
-    private void logTransactionState(OperationState state, String className, String methodName,
-                                     String transactionId, String contextInfo, Object details) {
-        String timestamp = Instant.now().toString();
-        String message = String.format("🏷️  TXN[%s] | %s %s: %s.%s | ⏰ %s | 📍 %s",
-                transactionId,
-                state.emoji,
-                state.description,
-                className.substring(className.lastIndexOf('.') + 1), // Solo nombre clase
-                methodName,
-                timestamp,
-                contextInfo != null ? contextInfo : ""
-        );
+    @Autowired
+    private BoundedLogRenderer logRenderer;
 
-        // Solo logear a archivo en estados importantes para evitar sobrecarga
-        boolean shouldLogToFile = state == OperationState.ERROR ||
-                                 state == OperationState.WARNING ||
-                                 state == OperationState.COMPLETED ||
-                                 state == OperationState.STARTED;
+    @Autowired
+    private LatencyMetrics latencyMetrics;
 
-        switch (state) {
-            case ERROR -> {
-                logger.error(message + (details != null ? " | 📄 Details: {}" : ""), details);
-                if (shouldLogToFile) {
-                    safeLogToFile(transactionId, message + (details != null ? " | Details: " + details : ""));
-                }
+    @Autowired
+    private TransactionIdGenerator transactionIdGenerator;
+
+    private JoinPointMetadata metadataFor(ProceedingJoinPoint joinPoint) {
+        MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+        Method method = signature.getMethod();
+        JoinPointMetadata metadata = metadataCache.get(method);
+        if (metadata == null) {
+            metadata = metadataCache.computeIfAbsent(method,
+                    key -> new JoinPointMetadata(signature.getDeclaringType(), key,
+                            signature.getParameterNames(), logRenderer, latencyMetrics));
+        }
+        return metadata;
+    }
+
+    // El mensaje solo se construye si algún destino (consola o archivo) lo va a consumir
+    private void logTransactionState(OperationState state, JoinPointMetadata metadata, String transactionId,
+                                     long durationMs, Throwable error, Object details) {
+        boolean toConsole = switch (state) {
+            case ERROR -> logger.isErrorEnabled();
+            case WARNING -> logger.isWarnEnabled();
+            default -> logger.isInfoEnabled();
+        };
+        boolean toFile = state.logToFile && metadata.fileLogEnabled && fileLoggingService != null;
+        if (!toConsole && !toFile) {
+            return;
+        }
+
+        StringBuilder message = acquireBuilder();
+        message.append("🏷️  TXN[").append(transactionId).append(metadata.statePrefixes[state.ordinal()]);
+        appendTimestamp(message, System.currentTimeMillis());
+        message.append(" | 📍 ");
+        appendContextInfo(message, state, durationMs, error);
+
+        String sanitized = renderDetails(state, metadata, details);
+        int baseLength = message.length();
+
+        if (toConsole) {
+            if (sanitized != null) {
+                message.append(" | 📄 Details: ").append(sanitized);
             }
-            case WARNING -> {
-                logger.warn(message + (details != null ? " | 📄 Details: {}" : ""), details);
-                if (shouldLogToFile) {
-                    safeLogToFile(transactionId, message + (details != null ? " | Details: " + details : ""));
-                }
+            String consoleMessage = message.toString();
+            switch (state) {
+                case ERROR -> logger.error(consoleMessage);
+                case WARNING -> logger.warn(consoleMessage);
+                default -> logger.info(consoleMessage);
             }
+        }
+        if (toFile) {
+            message.setLength(baseLength);
+            if (sanitized != null) {
+                message.append(" | Details: ").append(sanitized);
+            }
+            safeLogToFile(transactionId, message.toString());
+        }
+    }
+
+    private void appendContextInfo(StringBuilder message, OperationState state, long durationMs, Throwable error) {
+        switch (state) {
+            case STARTED, IN_PROGRESS -> appendHttpContext(message);
+            case TERMINATED -> message.append("Total Duration: ").append(durationMs).append("ms");
             default -> {
-                logger.info(message + (details != null ? " | 📄 Details: {}" : ""),
-                        details != null ? sanitizeForLog(details) : "");
-                if (shouldLogToFile) {
-                    safeLogToFile(transactionId, message + (details != null ? " | Details: " + sanitizeForLog(details) : ""));
+                message.append("Duration: ").append(durationMs).append("ms");
+                if (error != null) {
+                    message.append(" | Error: ").append(error.getMessage());
                 }
             }
         }
     }
 
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000L;
+    }
+
+    private StringBuilder acquireBuilder() {
+        StringBuilder builder = messageBuilder.get();
+        if (builder.capacity() > MAX_RETAINED_BUILDER) {
+            // No retener buffers grandes por hilo tras un mensaje excepcional
+            builder = new StringBuilder(256);
+            messageBuilder.set(builder);
+        }
+        builder.setLength(0);
+        return builder;
+    }
+
+    // Equivalente a Instant.toString() con milisegundos, sin formatear la fecha en cada llamada
+    private void appendTimestamp(StringBuilder target, long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000L);
+        SecondPrefix cached = secondPrefix;
+        if (cached.second() != second) {
+            String iso = Instant.ofEpochSecond(second).toString();
+            cached = new SecondPrefix(second, iso.substring(0, iso.length() - 1) + ".");
+            secondPrefix = cached;
+        }
+        int millis = (int) Math.floorMod(epochMillis, 1000L);
+        target.append(cached.prefix());
+        if (millis < 100) {
+            target.append('0');
+        }
+        if (millis < 10) {
+            target.append('0');
+        }
+        target.append(millis).append('Z');
+    }
+
     // Método seguro para evitar ciclos infinitos
     private void safeLogToFile(String transactionId, String message) {
         try {
-            if (fileLoggingService != null) {
-                fileLoggingService.writeTransactionLog(transactionId, message);
-            }
+            fileLoggingService.writeTransactionLog(transactionId, message);
         } catch (Exception e) {
             // Solo log a consola, no al archivo para evitar recursión
             logger.warn("No se pudo escribir al archivo de log: {}", e.getMessage());
         }
     }
 
-    // 🔥 NUEVO: Obtener o crear ID de transacción
-    private String getOrCreateTransactionId() {
-        String existingId = MDC.get("transactionId");
-        if (existingId != null) {
-            return existingId;
+    private static void restoreMdc(String key, String value) {
+        if (value == null) {
+            MDC.remove(key);
+        } else {
+            MDC.put(key, value);
         }
-        return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
     }
 
-    // 🔥 NUEVO: Obtener contexto HTTP
-    private String getHttpContext() {
-        try {
-            ServletRequestAttributes attributes =
-                    (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
-            HttpServletRequest request = attributes.getRequest();
-            return String.format("🌐 %s %s | 📡 %s",
-                    request.getMethod(),
-                    request.getRequestURI(),
-                    request.getRemoteAddr());
-        } catch (Exception e) {
-            return "🔧 Non-HTTP Context";
+    // 🔥 NUEVO: Contexto HTTP
+    private void appendHttpContext(StringBuilder target) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes servletAttributes)) {
+            target.append("🔧 Non-HTTP Context");
+            return;
         }
+        HttpServletRequest request = servletAttributes.getRequest();
+        target.append("🌐 ").append(request.getMethod())
+                .append(' ').append(request.getRequestURI())
+                .append(" | 📡 ").append(request.getRemoteAddr());
     }
 
-    // 🔥 NUEVO: Sanitizar datos sensibles para logs
-    private Object sanitizeForLog(Object data) {
-        if (data == null) return null;
-        String str = data.toString();
-        // Ocultar passwords
-        if (str.toLowerCase().contains("password")) {
-            return "***SENSITIVE_DATA_HIDDEN***";
+    // 🔥 NUEVO: Sanitizar datos sensibles para logs sin materializar el objeto completo
+    private String renderDetails(OperationState state, JoinPointMetadata metadata, Object details) {
+        if (details == null) {
+            return null;
+        }
+        if (state == OperationState.STARTED && details instanceof Object[] args) {
+            return logRenderer.renderArguments(metadata.parameterNames, metadata.sensitiveParameters, args);
         }
-        // Limitar tamaño del log
-        return str.length() > 200 ? str.substring(0, 200) + "..." : str;
+        return logRenderer.render(details);
     }
 }
@@ -0,0 +1,277 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ApiResponse;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.AnnotationIntrospector;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.NopAnnotationIntrospector;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Escribe el sobre {"meta","data","error"} directamente en el stream de la respuesta con un
+ * JsonGenerator del ObjectMapper de Spring, sin construir el ApiResponse ni un String
+ * intermedio. Los nombres de campo, los mensajes de estado y los cuerpos String de los handlers
+ * marcados con @ConstantBody (p. ej. los de /test) se serializan una sola vez; el timestamp se
+ * formatea una vez por segundo.
+ * Con Accept application/cbor o application/x-jackson-smile se usa el mismo sobre en el formato
+ * binario correspondiente (JSON sigue siendo el formato por defecto).
+ * Con una FieldProjection activa, "data" se escribe con una copia del mapper que aplica el filtro
+ * de proyección a todos los beans y mapas; sin ella se usa el writer normal, sin coste añadido.
+ * Los errores frecuentes (401, 429, 503) se preparan como ErrorEnvelope: bytes JSON fijos a los
+ * que solo se añaden la ruta y el timestamp al escribir.
+ */
+@Component
+public class ApiEnvelopeWriter {
+
+    private static final SerializedString META = new SerializedString("meta");
+    private static final SerializedString MESSAGE = new SerializedString("message");
+    private static final SerializedString STATUS_CODE = new SerializedString("statusCode");
+    private static final SerializedString PATH = new SerializedString("path");
+    private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+    private static final SerializedString DATA = new SerializedString("data");
+    private static final SerializedString ERROR = new SerializedString("error");
+    private static final SerializedString CODE = new SerializedString("code");
+    private static final SerializedString DESCRIPTION = new SerializedString("description");
+
+    private static final SerializedString SUCCESS = new SerializedString("Success");
+    private static final SerializedString UNKNOWN_ERROR = new SerializedString("Unknown Error");
+    private static final SerializedString[] STATUS_MESSAGES = new SerializedString[600];
+
+    // Tope de seguridad por si un handler marcado con @ConstantBody devolviera textos distintos
+    private static final int MAX_CONSTANTS = 256;
+
+    static {
+        // HttpStatus.resolve: ante códigos repetidos (constantes obsoletas) gana la primera
+        for (HttpStatus status : HttpStatus.values()) {
+            if (STATUS_MESSAGES[status.value()] == null) {
+                STATUS_MESSAGES[status.value()] = status.value() == HttpStatus.OK.value()
+                        ? SUCCESS
+                        : new SerializedString(status.getReasonPhrase());
+            }
+        }
+    }
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private record CachedTimestamp(long second, SerializedString value) {
+    }
+
+    /**
+     * Sobre de error serializado una sola vez: {"meta":{...,"path":"<ruta>","timestamp":"<ts>"},
+     * "data":null,"error":{...}}. head y tail son los bytes JSON antes de la ruta y tras el timestamp.
+     */
+    public static final class ErrorEnvelope {
+        private final int status;
+        private final byte[] head;
+        private final byte[] tail;
+
+        private ErrorEnvelope(int status, byte[] head, byte[] tail) {
+            this.status = status;
+            this.head = head;
+            this.tail = tail;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+    }
+
+    private static final byte[] PATH_TO_TIMESTAMP = "\",\"timestamp\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_CACHED_PATHS = 256;
+
+    // projectedWriter: el mismo mapper con el filtro de FieldProjection en todas las clases
+    private record Format(ObjectMapper mapper, ObjectWriter writer, ObjectWriter projectedWriter) {
+
+        static Format of(ObjectMapper mapper) {
+            ObjectMapper projected = mapper.copy();
+            projected.setAnnotationIntrospector(AnnotationIntrospector.pair(new ProjectionIntrospector(),
+                    mapper.getSerializationConfig().getAnnotationIntrospector()));
+            return new Format(mapper, mapper.writer(), projected.writer());
+        }
+    }
+
+    private static final class ProjectionIntrospector extends NopAnnotationIntrospector {
+        @Override
+        public Object findFilterId(Annotated annotated) {
+            return FieldProjection.FILTER_ID;
+        }
+    }
+
+    private final Format json;
+    // null si el módulo de Jackson del formato no está en el classpath
+    private final Format cbor;
+    private final Format smile;
+    private final ConcurrentHashMap<String, SerializedString> constants = new ConcurrentHashMap<>();
+    // Ruta ya escapada para JSON; los rechazos se concentran en pocas rutas (/api/auth/login)
+    private final ConcurrentHashMap<String, byte[]> quotedPaths = new ConcurrentHashMap<>();
+    private volatile CachedTimestamp timestamp = new CachedTimestamp(Long.MIN_VALUE, null);
+
+    public ApiEnvelopeWriter(ObjectMapper objectMapper) {
+        this.json = Format.of(objectMapper);
+        ClassLoader classLoader = ApiEnvelopeWriter.class.getClassLoader();
+        // Misma configuración que los conversores CBOR/Smile que registra Spring MVC
+        this.cbor = ClassUtils.isPresent("com.fasterxml.jackson.dataformat.cbor.CBORFactory", classLoader)
+                ? Format.of(Jackson2ObjectMapperBuilder.cbor().build())
+                : null;
+        this.smile = ClassUtils.isPresent("com.fasterxml.jackson.dataformat.smile.SmileFactory", classLoader)
+                ? Format.of(Jackson2ObjectMapperBuilder.smile().build())
+                : null;
+    }
+
+    /**
+     * Formato del sobre según el tipo negociado: CBOR, Smile o JSON (por defecto).
+     */
+    public MediaType resolveFormat(MediaType selectedContentType) {
+        if (cbor != null && MediaType.APPLICATION_CBOR.isCompatibleWith(selectedContentType)) {
+            return MediaType.APPLICATION_CBOR;
+        }
+        if (smile != null && APPLICATION_SMILE.isCompatibleWith(selectedContentType)) {
+            return APPLICATION_SMILE;
+        }
+        return MediaType.APPLICATION_JSON;
+    }
+
+    public void write(OutputStream out, int status, String path, Object data, ApiResponse.ErrorDetails error)
+            throws IOException {
+        write(out, MediaType.APPLICATION_JSON, status, path, data, error, FieldProjection.NONE);
+    }
+
+    public void write(OutputStream out, MediaType format, int status, String path, Object data,
+                      ApiResponse.ErrorDetails error, FieldProjection projection) throws IOException {
+        Format selected = formatFor(format);
+        ObjectWriter writer = projection.isActive()
+                ? selected.projectedWriter().with(projection.getFilters())
+                : selected.writer();
+        // El stream lo cierra el contenedor; el generador solo lo vacía
+        try (JsonGenerator gen = selected.mapper().getFactory().createGenerator(StreamUtils.nonClosing(out), JsonEncoding.UTF8)) {
+            gen.writeStartObject();
+            gen.writeFieldName(META);
+            gen.writeStartObject();
+            gen.writeFieldName(MESSAGE);
+            gen.writeString(statusMessage(status));
+            gen.writeFieldName(STATUS_CODE);
+            gen.writeNumber(status);
+            gen.writeFieldName(PATH);
+            gen.writeString(path);
+            gen.writeFieldName(TIMESTAMP);
+            gen.writeString(currentTimestamp());
+            gen.writeEndObject();
+
+            gen.writeFieldName(DATA);
+            if (data instanceof SerializedString constant) {
+                gen.writeString(constant);
+            } else if (data instanceof String text) {
+                gen.writeString(text);
+            } else if (data == null) {
+                gen.writeNull();
+            } else {
+                writer.writeValue(gen, data);
+            }
+
+            gen.writeFieldName(ERROR);
+            if (error == null) {
+                gen.writeNull();
+            } else {
+                gen.writeStartObject();
+                gen.writeFieldName(CODE);
+                gen.writeString(error.getCode());
+                gen.writeFieldName(DESCRIPTION);
+                gen.writeString(error.getDescription());
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        }
+    }
+
+    /**
+     * Prepara el sobre de error de un estado con su código y descripción; los llamadores lo
+     * crean al arrancar y lo reutilizan en cada rechazo.
+     */
+    public ErrorEnvelope errorEnvelope(int status, String code, String description) {
+        String head = "{\"meta\":{\"message\":\"" + quote(statusMessage(status).getValue())
+                + "\",\"statusCode\":" + status + ",\"path\":\"";
+        String tail = "\"},\"data\":null,\"error\":{\"code\":\"" + quote(code)
+                + "\",\"description\":\"" + quote(description) + "\"}}";
+        return new ErrorEnvelope(status, head.getBytes(StandardCharsets.UTF_8), tail.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Escribe un sobre preparado en JSON: los mismos bytes que write() produciría para ese error.
+     */
+    public void writeError(OutputStream out, ErrorEnvelope envelope, String path) throws IOException {
+        out.write(envelope.head);
+        out.write(quotedPath(path));
+        out.write(PATH_TO_TIMESTAMP);
+        out.write(currentTimestamp().asQuotedUTF8());
+        out.write(envelope.tail);
+    }
+
+    private byte[] quotedPath(String path) {
+        byte[] quoted = quotedPaths.get(path);
+        if (quoted == null) {
+            quoted = JsonStringEncoder.getInstance().quoteAsUTF8(path);
+            if (quotedPaths.size() < MAX_CACHED_PATHS) {
+                quotedPaths.putIfAbsent(path, quoted);
+            }
+        }
+        return quoted;
+    }
+
+    private static String quote(String text) {
+        return new String(JsonStringEncoder.getInstance().quoteAsString(text));
+    }
+
+    private Format formatFor(MediaType format) {
+        if (MediaType.APPLICATION_CBOR.equals(format) && cbor != null) {
+            return cbor;
+        }
+        if (APPLICATION_SMILE.equals(format) && smile != null) {
+            return smile;
+        }
+        return json;
+    }
+
+    private static SerializedString statusMessage(int status) {
+        SerializedString message = status >= 0 && status < STATUS_MESSAGES.length ? STATUS_MESSAGES[status] : null;
+        return message != null ? message : UNKNOWN_ERROR;
+    }
+
+    // Instant.toString() sin fracciones: el mismo valor para todo el segundo
+    private SerializedString currentTimestamp() {
+        long second = System.currentTimeMillis() / 1000;
+        CachedTimestamp cached = timestamp;
+        if (cached.second() != second) {
+            cached = new CachedTimestamp(second, new SerializedString(Instant.ofEpochSecond(second).toString()));
+            timestamp = cached;
+        }
+        return cached.value();
+    }
+
+    /**
+     * Cuerpo de un handler @ConstantBody ya serializado, para pasarlo como data a write();
+     * null si se alcanzó el tope (se escribe entonces como String normal).
+     */
+    public SerializedString constant(String text) {
+        SerializedString cached = constants.get(text);
+        if (cached == null && constants.size() < MAX_CONSTANTS) {
+            cached = constants.computeIfAbsent(text, SerializedString::new);
+        }
+        return cached;
+    }
+}
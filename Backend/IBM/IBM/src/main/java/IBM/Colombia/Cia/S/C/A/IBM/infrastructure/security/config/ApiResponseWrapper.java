@@ -2,29 +2,37 @@ package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config;
 
 import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ApiResponse;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.ErrorResponse;
+import IBM.Colombia.Cia.S.C.A.IBM.shared.ConstantBody;
+import com.fasterxml.jackson.core.io.SerializedString;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.MethodParameter;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.http.server.ServletServerHttpResponse;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.json.AbstractJackson2HttpMessageConverter;
 import org.springframework.http.converter.StringHttpMessageConverter;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import org.springframework.lang.NonNull;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
 
 @RestControllerAdvice
 public class ApiResponseWrapper implements ResponseBodyAdvice<Object> {
 
+    @Autowired
+    private ApiEnvelopeWriter envelopeWriter;
+
     @Override
     public boolean supports(@NonNull MethodParameter returnType, @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
-        // Apply wrapping for JSON and String converters
-        return MappingJackson2HttpMessageConverter.class.isAssignableFrom(converterType)
+        // Apply wrapping for Jackson (JSON, CBOR, Smile) and String converters
+        return AbstractJackson2HttpMessageConverter.class.isAssignableFrom(converterType)
                 || StringHttpMessageConverter.class.isAssignableFrom(converterType);
     }
 
@@ -38,16 +46,6 @@ public class ApiResponseWrapper implements ResponseBodyAdvice<Object> {
         if (response instanceof ServletServerHttpResponse) {
             status = ((ServletServerHttpResponse) response).getServletResponse().getStatus();
         }
-        String message = (status == HttpStatus.OK.value())
-                ? "Success"
-                : (HttpStatus.resolve(status) != null ? HttpStatus.resolve(status).getReasonPhrase() : "Unknown Error");
-
-        ApiResponse.Meta meta = ApiResponse.Meta.builder()
-                .message(message)
-                .statusCode(status)
-                .path(request.getURI().getPath())
-                .timestamp(java.time.Instant.now().toString())
-                .build();
 
         // Check if the body represents an error
         Object data = null;
@@ -56,33 +54,31 @@ public class ApiResponseWrapper implements ResponseBodyAdvice<Object> {
             if (body instanceof ApiResponse.ErrorDetails) {
                 error = (ApiResponse.ErrorDetails) body;
             } else {
-                error = ApiResponse.ErrorDetails.builder()
-                        .code(body instanceof ErrorResponse ? ((ErrorResponse) body).getErrorCode() : "UNKNOWN_ERROR")
-                        .description(body instanceof ErrorResponse ? ((ErrorResponse) body).getMessage() : "Unknown Error")
-                        .build();
+                error = new ApiResponse.ErrorDetails(
+                        body instanceof ErrorResponse ? ((ErrorResponse) body).getErrorCode() : "UNKNOWN_ERROR",
+                        body instanceof ErrorResponse ? ((ErrorResponse) body).getMessage() : "Unknown Error");
             }
+        } else if (body instanceof String text && returnType.hasMethodAnnotation(ConstantBody.class)) {
+            // Literal declarado por el handler: se reutiliza su forma serializada
+            SerializedString constant = envelopeWriter.constant(text);
+            data = constant != null ? constant : text;
         } else {
             data = body;
         }
 
-        ApiResponse<Object> apiResponse = new ApiResponse<>(meta, data, error);
-
-        // For String message converter, serialize to JSON string
-        if (StringHttpMessageConverter.class.isAssignableFrom(selectedConverterType)) {
-            try {
-                return new ObjectMapper().writeValueAsString(apiResponse);
-            } catch (JsonProcessingException e) {
-                throw new RuntimeException("Error serializando ApiResponse", e);
-            }
-        }
-        return apiResponse;
-    }
-
-    private String serializeBody(Object body) {
+        // El sobre se escribe en streaming en la respuesta; devolver null evita que el
+        // conversor vuelva a serializar (en el caso String, un segundo JSON completo)
+        MediaType format = envelopeWriter.resolveFormat(selectedContentType);
+        response.getHeaders().setContentType(format);
+        // ?fields= / X-Fields: solo se escriben las rutas pedidas de "data"
+        FieldProjection projection = request instanceof ServletServerHttpRequest servletRequest
+                ? FieldProjection.from(servletRequest.getServletRequest())
+                : FieldProjection.NONE;
         try {
-            return new ObjectMapper().writeValueAsString(body);
-        } catch (JsonProcessingException e) {
-            return "Error serializing body: " + e.getMessage();
+            envelopeWriter.write(response.getBody(), format, status, request.getURI().getPath(), data, error, projection);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo ApiResponse", e);
         }
+        return null;
     }
 }
@@ -0,0 +1,166 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.FilterProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Proyección del campo "data" del ApiResponse: ?fields=token,user_information.firstName (o la
+ * cabecera X-Fields). Se aplica durante la serialización con un PropertyFilter que conoce la ruta
+ * del campo en curso: los campos no pedidos no se escriben y sus serializadores (p. ej. el de la
+ * foto) nunca se invocan. Pedir un objeto ("user_information") incluye todos sus campos; en las
+ * listas la ruta se aplica a cada elemento.
+ */
+public final class FieldProjection {
+
+    public static final String PARAMETER = "fields";
+    public static final String HEADER = "X-Fields";
+    public static final String FILTER_ID = "fieldProjection";
+
+    // Sin proyección: la respuesta completa, como hasta ahora
+    public static final FieldProjection NONE = new FieldProjection(null);
+
+    private static final String REQUEST_ATTRIBUTE = FieldProjection.class.getName();
+
+    // Los clientes repiten siempre las mismas listas de campos: se interpretan una sola vez
+    private static final int MAX_CACHED_LENGTH = 256;
+    private static final int MAX_CACHED = 256;
+    private static final ConcurrentHashMap<String, FieldProjection> CACHE = new ConcurrentHashMap<>();
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<>();
+        private boolean all;
+
+        private Node child(String name) {
+            return all ? this : children.get(name);
+        }
+    }
+
+    private final Node root;
+    private final FilterProvider filters;
+
+    private FieldProjection(Node root) {
+        this.root = root;
+        this.filters = root == null ? null : new SimpleFilterProvider().addFilter(FILTER_ID, new Filter());
+    }
+
+    /**
+     * Proyección de la petición (parámetro "fields" o cabecera X-Fields); se guarda como atributo
+     * para que el controlador y ApiResponseWrapper no la interpreten dos veces.
+     */
+    public static FieldProjection from(HttpServletRequest request) {
+        Object cached = request.getAttribute(REQUEST_ATTRIBUTE);
+        if (cached instanceof FieldProjection projection) {
+            return projection;
+        }
+        String spec = request.getParameter(PARAMETER);
+        if (spec == null) {
+            spec = request.getHeader(HEADER);
+        }
+        FieldProjection projection = parse(spec);
+        request.setAttribute(REQUEST_ATTRIBUTE, projection);
+        return projection;
+    }
+
+    public static FieldProjection parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return NONE;
+        }
+        if (spec.length() > MAX_CACHED_LENGTH) {
+            return build(spec);
+        }
+        FieldProjection cached = CACHE.get(spec);
+        if (cached == null) {
+            cached = CACHE.size() < MAX_CACHED ? CACHE.computeIfAbsent(spec, FieldProjection::build) : build(spec);
+        }
+        return cached;
+    }
+
+    private static FieldProjection build(String spec) {
+        Node root = new Node();
+        for (String path : spec.split(",")) {
+            Node node = root;
+            for (String segment : path.trim().split("\\.")) {
+                if (node.all || segment.isEmpty()) {
+                    break;
+                }
+                node = node.children.computeIfAbsent(segment, name -> new Node());
+            }
+            if (node != root) {
+                // "a" y "a.b" juntos: gana el objeto completo
+                node.all = true;
+                node.children.clear();
+            }
+        }
+        return root.children.isEmpty() ? NONE : new FieldProjection(root);
+    }
+
+    public boolean isActive() {
+        return root != null;
+    }
+
+    /**
+     * true si la ruta ("user_information.avatarUrl") se escribirá; permite no calcular los
+     * campos costosos que la proyección descarta.
+     */
+    public boolean includes(String path) {
+        if (root == null) {
+            return true;
+        }
+        Node node = root;
+        for (String segment : path.split("\\.")) {
+            if (node == null || node.all) {
+                break;
+            }
+            node = node.children.get(segment);
+        }
+        return node != null;
+    }
+
+    FilterProvider getFilters() {
+        return filters;
+    }
+
+    /**
+     * Nodo que aplica a los campos del objeto o lista abierto en ctx. El valor de "data" es el
+     * hijo del sobre, que a su vez es hijo de la raíz; null indica que se está fuera de "data".
+     */
+    private Node nodeFor(JsonStreamContext ctx) {
+        JsonStreamContext parent = ctx.getParent();
+        if (parent == null || parent.inRoot()) {
+            return null;
+        }
+        if (parent.getParent().inRoot()) {
+            return root;
+        }
+        Node node = nodeFor(parent);
+        if (node == null || parent.inArray()) {
+            return node;
+        }
+        Node child = node.child(parent.getCurrentName());
+        return child != null ? child : node;
+    }
+
+    private final class Filter extends SimpleBeanPropertyFilter {
+
+        @Override
+        public void serializeAsField(Object pojo, JsonGenerator gen, SerializerProvider provider,
+                                     PropertyWriter writer) throws Exception {
+            Node node = nodeFor(gen.getOutputContext());
+            if (node == null || node.child(writer.getName()) != null) {
+                writer.serializeAsField(pojo, gen, provider);
+            } else if (!gen.canOmitFields()) {
+                writer.serializeAsOmittedField(pojo, gen, provider);
+            }
+        }
+    }
+}
@@ -1,12 +1,15 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config;
 
 
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionContext;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.JwtAuthenticationEntryPoint;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.JwtRequestFilter;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.JwtUtil;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.ratelimit.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -30,6 +33,9 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Autowired
     private JwtUtil jwtTokenUtil;
 
@@ -50,8 +56,8 @@ public class SecurityConfig {
                     CorsConfiguration config = new CorsConfiguration();
                     config.setAllowedOrigins(Arrays.asList("http://localhost:4200"));
                     config.setAllowedMethods(Arrays.asList("GET", "POST", "PUT"));
-                    config.setAllowedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Authorization"));
-                    config.setExposedHeaders(Arrays.asList("Authorization"));
+                    config.setAllowedHeaders(Arrays.asList("Origin", "Content-Type", "Accept", "Authorization", TransactionContext.HEADER, FieldProjection.HEADER));
+                    config.setExposedHeaders(Arrays.asList("Authorization", TransactionContext.HEADER));
                     config.setAllowCredentials(true);
                     config.setMaxAge(3600L);
                     return config;
@@ -59,6 +65,8 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Los <img> no envían el token: el id opaco de la URL solo lo conoce quien hizo login
+                        .requestMatchers(HttpMethod.GET, "/api/users/*/avatar").permitAll()
                         .anyRequest().authenticated()
                 )
                 .exceptionHandling(ex -> ex
@@ -67,7 +75,9 @@ public class SecurityConfig {
                 .sessionManagement(session -> session
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
-                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtRequestFilter, UsernamePasswordAuthenticationFilter.class)
+                // Los logins por encima del límite se rechazan antes de validar tokens o llamar al backend
+                .addFilterBefore(rateLimitFilter, JwtRequestFilter.class);
 
         return http.build();
     }
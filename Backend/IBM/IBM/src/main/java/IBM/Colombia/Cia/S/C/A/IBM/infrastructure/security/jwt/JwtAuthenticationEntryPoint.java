@@ -1,9 +1,11 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt;
 
 
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.RejectionResponses;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
@@ -12,8 +14,13 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthenticationEntryPoint implements AuthenticationEntryPoint {
+
+    @Autowired
+    private RejectionResponses rejectionResponses;
+
     @Override
     public void commence(HttpServletRequest request, HttpServletResponse response, AuthenticationException authException) throws IOException, ServletException {
-        response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Unauthorized");
+        // Sobre 401 preparado: sin sendError ni el despacho a /error por cada petición rechazada
+        rejectionResponses.unauthorized(request, response);
     }
 }
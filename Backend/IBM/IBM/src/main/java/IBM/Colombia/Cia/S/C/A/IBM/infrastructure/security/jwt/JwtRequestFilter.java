@@ -1,6 +1,7 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt;
 
 
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.service.CachedUserDetailsLookup;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
@@ -8,36 +9,48 @@ import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 @Component
 public class JwtRequestFilter extends OncePerRequestFilter {
 
     @Autowired
-    private UserDetailsService userDetailsService;
+    private CachedUserDetailsLookup userDetailsLookup;
+
+    // token: principal reconstruido desde los claims; lookup: consulta (cacheada) al UserDetailsService
+    @Value("${jwt.principal.source:token}")
+    private String principalSource;
 
     @Autowired
     private JwtUtil jwtTokenUtil;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         final String authorizationHeader = request.getHeader("Authorization");
 
-        String username = null;
-        String jwt = null;
+        VerifiedToken verifiedToken = null;
 
         if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
+            String jwt = authorizationHeader.substring(7);
             try {
-                username = jwtTokenUtil.extractUsername(jwt);
+                // Un solo parseo y verificación de firma por petición (o ninguno si está en caché)
+                verifiedToken = verifiedTokenCache.verify(jwt);
             } catch (ExpiredJwtException e) {
                 handleException(response, HttpServletResponse.SC_UNAUTHORIZED, "Token JWT expirado");
                 return;
@@ -50,10 +63,11 @@ public class JwtRequestFilter extends OncePerRequestFilter {
             }
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (verifiedToken != null && verifiedToken.subject() != null
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            UserDetails userDetails = resolvePrincipal(verifiedToken);
 
-            if (jwtTokenUtil.validateToken(jwt, userDetails)) {
+            if (jwtTokenUtil.validateToken(verifiedToken, userDetails)) {
                 UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
                         userDetails, null, userDetails.getAuthorities());
                 authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -64,6 +78,18 @@ public class JwtRequestFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserDetails resolvePrincipal(VerifiedToken verifiedToken) {
+        // Los tokens emitidos antes de incluir roles siguen resolviéndose con la consulta
+        if ("lookup".equalsIgnoreCase(principalSource) || !verifiedToken.hasClaim(JwtUtil.ROLES_CLAIM)) {
+            return userDetailsLookup.loadUserByUsername(verifiedToken.subject());
+        }
+        List<GrantedAuthority> authorities = new ArrayList<>(verifiedToken.authorities().size());
+        for (String role : verifiedToken.authorities()) {
+            authorities.add(new SimpleGrantedAuthority(role));
+        }
+        return new User(verifiedToken.subject(), "", authorities);
+    }
+
     private void handleException(HttpServletResponse response, int status, String message) throws IOException {
         response.setStatus(status);
         response.setContentType("application/json");
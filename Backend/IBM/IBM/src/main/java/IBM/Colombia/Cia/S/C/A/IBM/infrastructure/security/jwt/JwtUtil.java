@@ -2,17 +2,24 @@ package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt;
 
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 
+import jakarta.annotation.PostConstruct;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import org.springframework.beans.factory.annotation.Value;
@@ -22,6 +29,7 @@ import org.springframework.beans.factory.annotation.Value;
 @Component
 public class JwtUtil {
 
+    public static final String ROLES_CLAIM = "roles";
 
     @Value("${jwt.secret}")
     private String secret;
@@ -29,16 +37,30 @@ public class JwtUtil {
     @Value("${jwt.expiration.ms}")
     private long expiration;
 
-    private SecretKey getSigningKey() {
+    // Clave y parser se construyen una sola vez: ambos son inmutables y seguros entre hilos
+    private SecretKey signingKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
         if (secret.length() < 32) {
             throw new IllegalArgumentException("La clave secreta debe tener al menos 32 caracteres para cumplir con los requisitos de seguridad.");
         }
         byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        signingKey = Keys.hmacShaKeyFor(keyBytes);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        // Roles dentro del token: el filtro reconstruye el principal sin consultar al usuario
+        List<String> roles = new ArrayList<>(userDetails.getAuthorities().size());
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            roles.add(authority.getAuthority());
+        }
+        claims.put(ROLES_CLAIM, roles);
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -51,10 +73,24 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    /**
+     * Parsea y verifica el token una única vez (firma y expiración).
+     * Lanza ExpiredJwtException o JwtException si el token no es válido.
+     */
+    public VerifiedToken verify(String token) {
+        Claims claims = extractAllClaims(token);
+        Date expirationDate = claims.getExpiration();
+        return new VerifiedToken(
+                claims.getSubject(),
+                expirationDate != null ? expirationDate.toInstant() : null,
+                extractAuthorities(claims),
+                claims);
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -69,19 +105,30 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    private List<String> extractAuthorities(Claims claims) {
+        Object roles = claims.get(ROLES_CLAIM);
+        if (!(roles instanceof Collection<?> values)) {
+            return List.of();
+        }
+        List<String> authorities = new ArrayList<>(values.size());
+        for (Object value : values) {
+            if (value != null) {
+                authorities.add(value.toString());
+            }
+        }
+        return authorities;
     }
 
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public Boolean validateToken(VerifiedToken token, UserDetails userDetails) {
+        return token.subject() != null
+                && token.subject().equals(userDetails.getUsername())
+                && !token.isExpired(Instant.now());
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(verify(token), userDetails);
     }
 }
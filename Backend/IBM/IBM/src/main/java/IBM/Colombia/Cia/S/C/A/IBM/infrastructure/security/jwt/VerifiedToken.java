@@ -0,0 +1,32 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resultado inmutable de verificar un JWT una sola vez: firma y expiración ya comprobadas.
+ * Los consumidores leen sujeto, expiración, roles y claims sin volver a parsear el token.
+ */
+public record VerifiedToken(String subject, Instant expiresAt, List<String> authorities, Map<String, Object> claims) {
+
+    public VerifiedToken {
+        authorities = authorities == null ? List.of() : List.copyOf(authorities);
+        // Los claims JSON pueden contener valores null, por eso no se usa Map.copyOf
+        claims = claims == null ? Map.of() : Collections.unmodifiableMap(new LinkedHashMap<>(claims));
+    }
+
+    public boolean isExpired(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    public boolean hasClaim(String name) {
+        return claims.containsKey(name);
+    }
+
+    public Object getClaim(String name) {
+        return claims.get(name);
+    }
+}
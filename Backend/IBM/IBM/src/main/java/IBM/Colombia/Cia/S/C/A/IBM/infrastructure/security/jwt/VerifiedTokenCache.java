@@ -0,0 +1,173 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché acotada de tokens ya verificados, indexada por el SHA-256 del token.
+ * Una entrada nunca sobrevive a la expiración (exp) del token; al superar el tamaño
+ * máximo se descarta la menos usada de su segmento (LRU por segmentos con bloqueo propio).
+ */
+@Component
+public class VerifiedTokenCache implements MetricsSource {
+
+    private static final int STRIPES = 16;
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    // Los 256 bits del digest como clave: sin colisiones prácticas y sin guardar el token en claro
+    private record TokenKey(long a, long b, long c, long d) { }
+
+    private record Entry(VerifiedToken token, long expiresAtMillis) { }
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    private final boolean enabled;
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public VerifiedTokenCache(@Value("${jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.cache.max-size:10000}") int maxSize) {
+        this.enabled = enabled;
+        int perStripe = Math.max(1, maxSize / STRIPES);
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe(perStripe);
+        }
+    }
+
+    /**
+     * Devuelve el token verificado desde la caché o lo verifica con JwtUtil.
+     * Los tokens inválidos o expirados propagan la excepción de JwtUtil y no se guardan.
+     */
+    public VerifiedToken verify(String token) {
+        if (!enabled) {
+            return jwtUtil.verify(token);
+        }
+        TokenKey key = keyOf(token);
+        Stripe stripe = stripes[Math.floorMod(Long.hashCode(key.a()), STRIPES)];
+        long now = System.currentTimeMillis();
+
+        Entry entry = stripe.get(key);
+        if (entry != null) {
+            if (now < entry.expiresAtMillis()) {
+                hits.increment();
+                return entry.token();
+            }
+            stripe.remove(key, entry);
+            expirations.increment();
+        }
+
+        misses.increment();
+        VerifiedToken verified = jwtUtil.verify(token);
+        Instant expiresAt = verified.expiresAt();
+        // Un token sin exp no se cachea: la caché nunca puede extender su validez
+        if (expiresAt != null) {
+            stripe.put(key, new Entry(verified, expiresAt.toEpochMilli()));
+        }
+        return verified;
+    }
+
+    public void invalidateAll() {
+        for (Stripe stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "jwtCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("size", size());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("expirations", expirations.sum());
+        return metrics;
+    }
+
+    private static TokenKey keyOf(String token) {
+        MessageDigest digest = SHA256.get();
+        // UTF-8: un token manipulado con caracteres no ASCII no colisiona con otro ("?" de US_ASCII)
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.UTF_8));
+        return new TokenKey(readLong(hash, 0), readLong(hash, 8), readLong(hash, 16), readLong(hash, 24));
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    // Segmento LRU: LinkedHashMap en orden de acceso protegido por su propio monitor
+    private final class Stripe {
+        private final LinkedHashMap<TokenKey, Entry> entries;
+
+        Stripe(int maxEntries) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<TokenKey, Entry> eldest) {
+                    if (size() > maxEntries) {
+                        evictions.increment();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        synchronized Entry get(TokenKey key) {
+            return entries.get(key);
+        }
+
+        synchronized void put(TokenKey key, Entry entry) {
+            entries.put(key, entry);
+        }
+
+        synchronized void remove(TokenKey key, Entry entry) {
+            entries.remove(key, entry);
+        }
+
+        synchronized void clear() {
+            entries.clear();
+        }
+
+        synchronized int size() {
+            return entries.size();
+        }
+    }
+}
@@ -4,8 +4,11 @@ package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.controller;
 import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.AuthResponse;
 import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ApiResponse;
 import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ApiResponse.Meta;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.config.FieldProjection;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.dto.JwtRequest;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.service.AuthService;
+import IBM.Colombia.Cia.S.C.A.IBM.shared.ConstantBody;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -13,6 +16,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -22,13 +26,19 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("/login")
-    public ResponseEntity<AuthResponse> login(@Valid @RequestBody JwtRequest request) {
-        AuthResponse response = authService.login(request);
-        return ResponseEntity.ok(response);
+    public CompletableFuture<ResponseEntity<AuthResponse>> login(@Valid @RequestBody JwtRequest request,
+                                                                 HttpServletRequest httpRequest) {
+        // Con ?fields= que no pida la foto ni avatarUrl, el avatar no se registra ni se codifica
+        FieldProjection fields = FieldProjection.from(httpRequest);
+        boolean withAvatar = fields.includes("user_information.profilePhoto")
+                || fields.includes("user_information.avatarUrl");
+        // Resultado diferido: Tomcat libera el hilo mientras se consulta el backend SOAP
+        return authService.loginAsync(request, withAvatar).thenApply(ResponseEntity::ok);
     }
 
 
     @GetMapping("/test")
+    @ConstantBody
     public ResponseEntity<String> test() {
         return ResponseEntity.ok("Endpoint de autenticación funcionando");
     }
@@ -1,5 +1,6 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.dto;
 
+import IBM.Colombia.Cia.S.C.A.IBM.shared.Sensitive;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
@@ -16,6 +17,7 @@ public class JwtRequest {
             regexp = "^(?=.*[0-9])(?=.*[a-z])(?=.*[A-Z])(?=.*[@#$%^&+=])(?=\\S+$).{8,}$",
             message = "La contraseña debe tener al menos 8 caracteres, incluir mayúsculas, minúsculas, números y caracteres especiales"
     )*/
+    @Sensitive
     private String password;
 
     // Constructor sin argumentos (generado por @NoArgsConstructor)
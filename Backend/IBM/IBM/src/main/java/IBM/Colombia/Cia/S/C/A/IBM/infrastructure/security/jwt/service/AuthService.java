@@ -2,16 +2,23 @@ package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.service;
 
 
 import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.AuthResponse;
+import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ProfilePhoto;
+import IBM.Colombia.Cia.S.C.A.IBM.application.service.AvatarService;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionContext;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client.AuthSoapClient;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client.StreamedBackendResponse;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendResponse;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.JwtUtil;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.dto.JwtRequest;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.SoapAuthenticationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
+import java.util.concurrent.CompletableFuture;
+
 @Service
 public class AuthService {
 
@@ -21,10 +28,31 @@ public class AuthService {
     @Autowired
     private JwtUtil jwtTokenUtil;
 
+    @Autowired
+    private AvatarService avatarService;
+
+    // true: la foto también viaja en línea como data URI (clientes que no usan avatarUrl)
+    @Value("${auth.response.avatar-inline:false}")
+    private boolean avatarInline;
+
     public AuthResponse login(JwtRequest request) {
         // Obtener respuesta mock del servicio SOAP
         BackendResponse soapResp = authSoapClient.authenticate(request.getUsername(), request.getPassword());
+        return buildResponse(request, soapResp, true);
+    }
+
+    // Variante no bloqueante: el hilo del servlet queda libre durante la llamada SOAP
+    public CompletableFuture<AuthResponse> loginAsync(JwtRequest request) {
+        return loginAsync(request, true);
+    }
 
+    // withAvatar=false: la proyección de la respuesta no incluye la foto ni avatarUrl
+    public CompletableFuture<AuthResponse> loginAsync(JwtRequest request, boolean withAvatar) {
+        return authSoapClient.authenticateAsync(request.getUsername(), request.getPassword())
+                .thenApply(TransactionContext.wrap(soapResp -> buildResponse(request, soapResp, withAvatar)));
+    }
+
+    private AuthResponse buildResponse(JwtRequest request, BackendResponse soapResp, boolean withAvatar) {
         // Validar el código de respuesta
         if (soapResp.getResultCode() != 200) {
             throw new SoapAuthenticationException("Autenticación SOAP fallida: código " + soapResp.getResultCode());
@@ -39,6 +67,11 @@ public class AuthService {
         // Generar token JWT
         String token = jwtTokenUtil.generateToken(userDetails);
 
+        // La foto se sirve aparte en /api/users/{id}/avatar
+        ProfilePhoto photo = withAvatar ? profilePhoto(soapResp) : null;
+        AvatarService.Registration avatar = withAvatar ? avatarService.register(request.getUsername(), photo) : null;
+        String avatarUrl = avatar != null ? avatar.url() : null;
+
         // Construir y devolver la respuesta
         return new AuthResponse(
                 new AuthResponse.TokenInfo(token, "Bearer"),
@@ -47,9 +80,18 @@ public class AuthService {
                         soapResp.getFirstName(),
                         soapResp.getLastName(),
                         soapResp.getAge(),
-                        soapResp.getProfilePhoto(),
-                        soapResp.getVideo()
+                        avatarInline || avatar == null ? photo : null,
+                        soapResp.getVideo(),
+                        avatarUrl
                 )
         );
     }
+
+    // La foto leída en streaming ya viene en bytes; no se construye la data URI intermedia
+    private static ProfilePhoto profilePhoto(BackendResponse soapResp) {
+        if (soapResp instanceof StreamedBackendResponse streamed) {
+            return streamed.getPhoto();
+        }
+        return ProfilePhoto.ofDataUri(soapResp.getProfilePhoto());
+    }
 }
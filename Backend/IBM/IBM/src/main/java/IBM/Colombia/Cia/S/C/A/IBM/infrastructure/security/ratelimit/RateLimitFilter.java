@@ -0,0 +1,329 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.ratelimit;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.RejectionResponses;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience.TokenBucketLimiter;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limita en memoria las peticiones por ruta antes de JwtRequestFilter, por IP y por usuario (el
+ * "username" del cuerpo JSON del login). Las rutas se declaran en rate-limit.routes y cada una en
+ * rate-limit.route.<nombre>.*; los límites se escriben "capacidad/periodo" (p. ej. 20/1m).
+ * Un rechazo responde 429 con Retry-After sin llegar al controlador ni al backend SOAP.
+ * La IP es request.getRemoteAddr(): detrás de un proxy hay que activar server.forward-headers-strategy.
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter implements MetricsSource {
+
+    private static final int MAX_USERNAME_LENGTH = 100;
+
+    private final class Route {
+        private final String name;
+        private final String method;
+        private final String pattern;
+        private final TokenBucketLimiter perIp;
+        private final TokenBucketLimiter perUsername;
+        private final LongAdder rejectedByIp = new LongAdder();
+        private final LongAdder rejectedByUsername = new LongAdder();
+
+        private Route(String name, String method, String pattern, TokenBucketLimiter perIp,
+                      TokenBucketLimiter perUsername) {
+            this.name = name;
+            this.method = method;
+            this.pattern = pattern;
+            this.perIp = perIp;
+            this.perUsername = perUsername;
+        }
+
+        private boolean matches(String requestMethod, String path) {
+            return (method == null || method.equalsIgnoreCase(requestMethod)) && pathMatcher.match(pattern, path);
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final JsonFactory jsonFactory;
+    private final RejectionResponses rejectionResponses;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<Route> routes = new ArrayList<>();
+
+    public RateLimitFilter(@Value("${rate-limit.enabled:true}") boolean enabled,
+                           @Value("${rate-limit.routes:}") List<String> routeNames,
+                           @Value("${rate-limit.max-buckets:100000}") int maxBuckets,
+                           @Value("${rate-limit.sweep-interval:30s}") Duration sweepInterval,
+                           @Value("${rate-limit.max-body-bytes:16384}") int maxBodyBytes,
+                           Environment environment, ObjectMapper objectMapper,
+                           RejectionResponses rejectionResponses) {
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.jsonFactory = objectMapper.getFactory();
+        this.rejectionResponses = rejectionResponses;
+        for (String name : routeNames) {
+            String prefix = "rate-limit.route." + name.trim() + ".";
+            String pattern = environment.getProperty(prefix + "pattern");
+            if (pattern == null) {
+                throw new IllegalStateException("Falta " + prefix + "pattern");
+            }
+            Route route = new Route(name.trim(), environment.getProperty(prefix + "method"), pattern,
+                    limiter(environment.getProperty(prefix + "per-ip"), maxBuckets, sweepInterval),
+                    limiter(environment.getProperty(prefix + "per-username"), maxBuckets, sweepInterval));
+            routes.add(route);
+            log.info("🔌 Límite de peticiones {} {} {}: por IP {}, por usuario {}", route.name,
+                    route.method == null ? "*" : route.method, pattern,
+                    environment.getProperty(prefix + "per-ip", "-"),
+                    environment.getProperty(prefix + "per-username", "-"));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || routes.isEmpty();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Route route = match(request);
+        if (route == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // Primero la IP: un cliente que ya excede su límite no llega a leer el cuerpo
+        if (route.perIp != null) {
+            long waitNanos = route.perIp.tryAcquire(request.getRemoteAddr());
+            if (waitNanos > 0) {
+                route.rejectedByIp.increment();
+                rejectionResponses.tooManyRequests(request, response, retryAfterSeconds(waitNanos));
+                return;
+            }
+        }
+
+        HttpServletRequest forwarded = request;
+        if (route.perUsername != null) {
+            BufferedBodyRequest buffered = BufferedBodyRequest.read(request, maxBodyBytes);
+            forwarded = buffered;
+            // Sin usuario legible la validación del controlador rechazará la petición
+            String username = buffered.isComplete() ? username(buffered.body) : null;
+            if (username != null) {
+                long waitNanos = route.perUsername.tryAcquire(username);
+                if (waitNanos > 0) {
+                    route.rejectedByUsername.increment();
+                    rejectionResponses.tooManyRequests(request, response, retryAfterSeconds(waitNanos));
+                    return;
+                }
+            }
+        }
+        filterChain.doFilter(forwarded, response);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "rateLimit";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        for (Route route : routes) {
+            Map<String, Object> routeMetrics = new LinkedHashMap<>();
+            routeMetrics.put("pattern", route.pattern);
+            routeMetrics.put("rejectedByIp", route.rejectedByIp.sum());
+            routeMetrics.put("rejectedByUsername", route.rejectedByUsername.sum());
+            if (route.perIp != null) {
+                routeMetrics.put("perIp", route.perIp.getMetrics());
+            }
+            if (route.perUsername != null) {
+                routeMetrics.put("perUsername", route.perUsername.getMetrics());
+            }
+            metrics.put(route.name, routeMetrics);
+        }
+        return metrics;
+    }
+
+    private Route match(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.matches(request.getMethod(), path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    // "20/1m": 20 peticiones de ráfaga, repuestas a lo largo de un minuto; vacío = sin límite
+    private static TokenBucketLimiter limiter(String spec, int maxBuckets, Duration sweepInterval) {
+        if (spec == null || spec.isBlank()) {
+            return null;
+        }
+        int separator = spec.indexOf('/');
+        if (separator < 0) {
+            throw new IllegalStateException("Límite inválido (se espera capacidad/periodo): " + spec);
+        }
+        int capacity = Integer.parseInt(spec.substring(0, separator).trim());
+        Duration period = DurationStyle.detectAndParse(spec.substring(separator + 1).trim());
+        return new TokenBucketLimiter(capacity, period, maxBuckets, sweepInterval);
+    }
+
+    private static long retryAfterSeconds(long waitNanos) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    // Solo el campo "username" del objeto raíz; el resto del cuerpo no se interpreta
+    private String username(byte[] body) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("username".equals(field)) {
+                    if (value != JsonToken.VALUE_STRING) {
+                        return null;
+                    }
+                    String username = parser.getText().trim();
+                    return username.isEmpty() || username.length() > MAX_USERNAME_LENGTH
+                            ? null
+                            : username.toLowerCase(Locale.ROOT);
+                }
+                parser.skipChildren();
+            }
+        } catch (IOException e) {
+            // JSON mal formado: lo rechazará el controlador
+        }
+        return null;
+    }
+
+    /**
+     * Petición con el cuerpo ya leído (hasta maxBodyBytes) para extraer el usuario; el controlador
+     * vuelve a leerlo desde memoria. Si el cuerpo es mayor se sirve lo leído seguido del resto.
+     */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+        private final ServletInputStream remaining;
+        private ServletInputStream stream;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body, ServletInputStream remaining) {
+            super(request);
+            this.body = body;
+            this.remaining = remaining;
+        }
+
+        static BufferedBodyRequest read(HttpServletRequest request, int maxBodyBytes) throws IOException {
+            ServletInputStream in = request.getInputStream();
+            byte[] body = in.readNBytes(maxBodyBytes + 1);
+            return body.length <= maxBodyBytes
+                    ? new BufferedBodyRequest(request, body, null)
+                    : new BufferedBodyRequest(request, body, in);
+        }
+
+        boolean isComplete() {
+            return remaining == null;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            if (stream == null) {
+                stream = new ReplayInputStream(new ByteArrayInputStream(body), remaining);
+            }
+            return stream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+    }
+
+    /**
+     * Primero los bytes leídos por el filtro y después, si los hay, el resto del stream original.
+     * Admite lectura asíncrona: con el cuerpo completo en memoria se notifica al listener en el
+     * acto; si queda cuerpo por leer, las notificaciones las da el stream original.
+     */
+    private static final class ReplayInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream buffered;
+        private final ServletInputStream remaining;
+
+        private ReplayInputStream(ByteArrayInputStream buffered, ServletInputStream remaining) {
+            this.buffered = buffered;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return buffered.available() > 0 || remaining == null ? buffered.read() : remaining.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            // Sin cruzar de un origen a otro en la misma llamada: el resto puede no estar listo
+            return buffered.available() > 0 || remaining == null
+                    ? buffered.read(buffer, offset, length)
+                    : remaining.read(buffer, offset, length);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return buffered.available() == 0 && (remaining == null || remaining.isFinished());
+        }
+
+        @Override
+        public boolean isReady() {
+            return buffered.available() > 0 || remaining == null || remaining.isReady();
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            if (remaining != null) {
+                remaining.setReadListener(readListener);
+                return;
+            }
+            try {
+                if (buffered.available() > 0) {
+                    readListener.onDataAvailable();
+                }
+                readListener.onAllDataRead();
+            } catch (IOException | RuntimeException e) {
+                readListener.onError(e);
+            }
+        }
+    }
+}
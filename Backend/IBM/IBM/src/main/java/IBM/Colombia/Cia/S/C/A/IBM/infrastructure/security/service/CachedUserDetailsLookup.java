@@ -0,0 +1,81 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.service;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Consulta de usuarios con caché TTL delante del UserDetailsService configurado.
+ * Solo se usa cuando el despliegue exige una consulta en vivo del principal
+ * (jwt.principal.source=lookup) o cuando el token no trae el claim de roles.
+ */
+@Component
+public class CachedUserDetailsLookup implements MetricsSource {
+
+    private record CachedUser(UserDetails user, long expiresAtMillis) { }
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    private final long ttlMillis;
+    private final int maxSize;
+    private final Map<String, CachedUser> cache = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachedUserDetailsLookup(@Value("${jwt.principal.lookup-cache.ttl:5m}") Duration ttl,
+                                   @Value("${jwt.principal.lookup-cache.max-size:1000}") int maxSize) {
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+    }
+
+    public UserDetails loadUserByUsername(String username) {
+        if (ttlMillis <= 0) {
+            return userDetailsService.loadUserByUsername(username);
+        }
+        long now = System.currentTimeMillis();
+        CachedUser cached = cache.get(username);
+        if (cached != null && now < cached.expiresAtMillis()) {
+            hits.increment();
+            return cached.user();
+        }
+        misses.increment();
+        UserDetails user = userDetailsService.loadUserByUsername(username);
+        if (cache.size() >= maxSize) {
+            // Al llenarse se purgan las expiradas; si no alcanza, se vacía (la caché es solo un atajo)
+            cache.values().removeIf(entry -> now >= entry.expiresAtMillis());
+            if (cache.size() >= maxSize) {
+                cache.clear();
+            }
+        }
+        cache.put(username, new CachedUser(user, now + ttlMillis));
+        return user;
+    }
+
+    public void invalidate(String username) {
+        cache.remove(username);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "userDetailsLookup";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("size", cache.size());
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        return metrics;
+    }
+}
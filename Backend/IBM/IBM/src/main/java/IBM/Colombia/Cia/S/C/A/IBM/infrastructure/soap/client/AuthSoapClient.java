@@ -1,14 +1,39 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
 
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionContext;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.BackendUnavailableException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.SoapAuthenticationException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience.Bulkhead;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience.CircuitBreaker;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendResponse;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
 @Slf4j
 @Component
-public class AuthSoapClient {
+public class AuthSoapClient implements MetricsSource {
 
     @Value("${soap.auth.mock:true}")
     private boolean useMock;
@@ -17,21 +42,325 @@ public class AuthSoapClient {
     private final MockAuthSoapClient mockAuthSoapClient;
 
     @Autowired
-    public AuthSoapClient(RealAuthSoapClient realAuthSoapClient, MockAuthSoapClient mockAuthSoapClient) {
+    private SoapProfileCache profileCache;
+
+    // "stream": la foto se lee en streaming (StAX/MTOM) como bytes en lugar de como String
+    @Value("${soap.auth.photo-mode:string}")
+    private String photoMode;
+
+    @Autowired
+    private StreamingAuthSoapClient streamingAuthSoapClient;
+
+    // La concurrencia hacia el backend la limita el bulkhead, no el pool de hilos de Tomcat
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+    private final long timeoutMs;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final LongAdder timeouts = new LongAdder();
+
+    // Single-flight: logins concurrentes con las mismas credenciales comparten una llamada al backend
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    });
+
+    @Value("${soap.auth.coalesce.enabled:true}")
+    private boolean coalesceEnabled;
+
+    private final ConcurrentHashMap<String, CompletableFuture<BackendResponse>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder leaderCalls = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @Autowired
+    public AuthSoapClient(RealAuthSoapClient realAuthSoapClient, MockAuthSoapClient mockAuthSoapClient,
+                          @Value("${soap.auth.bulkhead.max-concurrent:64}") int maxConcurrent,
+                          @Value("${soap.auth.bulkhead.max-wait-ms:0}") long maxWaitMs,
+                          @Value("${soap.auth.async.timeout-ms:10000}") long timeoutMs,
+                          @Value("${soap.auth.breaker.window-size:20}") int windowSize,
+                          @Value("${soap.auth.breaker.minimum-calls:10}") int minimumCalls,
+                          @Value("${soap.auth.breaker.failure-rate-threshold:50}") int failureRateThreshold,
+                          @Value("${soap.auth.breaker.slow-call-rate-threshold:80}") int slowCallRateThreshold,
+                          @Value("${soap.auth.breaker.slow-call-ms:3000}") long slowCallMs,
+                          @Value("${soap.auth.breaker.open-duration-ms:30000}") long openDurationMs,
+                          @Value("${soap.auth.breaker.half-open-probes:3}") int halfOpenProbes,
+                          @Value("${soap.auth.breaker.half-open-timeout-ms:60000}") long halfOpenTimeoutMs) {
         this.realAuthSoapClient = realAuthSoapClient;
         this.mockAuthSoapClient = mockAuthSoapClient;
+        this.bulkhead = new Bulkhead(maxConcurrent, maxWaitMs);
+        this.circuitBreaker = new CircuitBreaker("soapAuth", windowSize, minimumCalls, failureRateThreshold,
+                slowCallRateThreshold, slowCallMs, openDurationMs, halfOpenProbes, halfOpenTimeoutMs);
+        this.timeoutMs = timeoutMs;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newBoundedExecutor(maxConcurrent);
     }
 
+    /**
+     * Autenticación síncrona protegida por circuit breaker y bulkhead.
+     * Los fallos se propagan tipados: SoapAuthenticationException (credenciales) o
+     * BackendUnavailableException (backend caído, lento o saturado).
+     */
     public BackendResponse authenticate(String username, String password) {
-        log.info("Iniciando autenticación SOAP para usuario: {}", username);
+        log.debug("Iniciando autenticación SOAP para usuario: {}", username);
+        if (!profileCache.isEnabled()) {
+            return authenticateCoalesced(username, password);
+        }
+        // Un acierto en caché ya prueba las credenciales: no hay ida y vuelta al backend
+        String cacheKey = profileCache.keyFor(username, password);
+        BackendResponse cached = profileCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
         try {
+            BackendResponse response = authenticateCoalesced(username, password);
+            profileCache.put(cacheKey, username, response);
+            return response;
+        } catch (SoapAuthenticationException e) {
+            profileCache.putFailure(cacheKey, username, e.getMessage());
+            throw e;
+        }
+    }
+
+    private BackendResponse authenticateCoalesced(String username, String password) {
+        if (!coalesceEnabled) {
+            return authenticateDirect(username, password);
+        }
+        String key = coalesceKey(username, password);
+        CompletableFuture<BackendResponse> shared = new CompletableFuture<>();
+        CompletableFuture<BackendResponse> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            return join(existing);
+        }
+        leaderCalls.increment();
+        try {
+            BackendResponse response = authenticateDirect(username, password);
+            inFlight.remove(key, shared);
+            shared.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, shared);
+            shared.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private BackendResponse authenticateDirect(String username, String password) {
+        // Primero el bulkhead: un permiso del circuito solo se pide si la llamada llegará al backend
+        if (!bulkhead.tryAcquire()) {
+            throw saturated();
+        }
+        try {
+            checkCircuit();
+            return callBackend(username, password);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    /**
+     * Autenticación sin bloquear el hilo del servlet. Si no hay permisos libres o el backend
+     * no responde dentro del timeout, el futuro termina con BackendUnavailableException.
+     * El ID de transacción y el MDC viajan con la tarea.
+     */
+    public CompletableFuture<BackendResponse> authenticateAsync(String username, String password) {
+        log.debug("Iniciando autenticación SOAP asíncrona para usuario: {}", username);
+        if (!profileCache.isEnabled()) {
+            return authenticateAsyncCoalesced(username, password);
+        }
+        String cacheKey;
+        try {
+            cacheKey = profileCache.keyFor(username, password);
+            BackendResponse cached = profileCache.get(cacheKey);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return authenticateAsyncCoalesced(username, password).whenComplete(TransactionContext.wrap((response, ex) -> {
+            if (ex == null) {
+                profileCache.put(cacheKey, username, response);
+            } else if (unwrap(ex) instanceof SoapAuthenticationException rejected) {
+                profileCache.putFailure(cacheKey, username, rejected.getMessage());
+            }
+        }));
+    }
+
+    private CompletableFuture<BackendResponse> authenticateAsyncCoalesced(String username, String password) {
+        if (!coalesceEnabled) {
+            return authenticateAsyncDirect(username, password);
+        }
+        String key = coalesceKey(username, password);
+        CompletableFuture<BackendResponse> shared = new CompletableFuture<>();
+        CompletableFuture<BackendResponse> existing = inFlight.putIfAbsent(key, shared);
+        if (existing != null) {
+            coalesced.increment();
+            // Copia: un llamador no puede completar ni cancelar el futuro compartido
+            return existing.copy();
+        }
+        leaderCalls.increment();
+        authenticateAsyncDirect(username, password).whenComplete(TransactionContext.wrap((response, ex) -> {
+            // Se retira antes de completar: nada queda retenido y los siguientes logins van al backend
+            inFlight.remove(key, shared);
+            if (ex != null) {
+                shared.completeExceptionally(unwrap(ex));
+            } else {
+                shared.complete(response);
+            }
+        }));
+        return shared.copy();
+    }
+
+    private CompletableFuture<BackendResponse> authenticateAsyncDirect(String username, String password) {
+        // Los permisos se toman en el hilo del llamador: con el bulkhead lleno se rechaza sin encolar.
+        // El bulkhead va antes que el circuito para no consumir una prueba de HALF_OPEN en un rechazo
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(saturated());
+        }
+        try {
+            checkCircuit();
+        } catch (BackendUnavailableException e) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        CompletableFuture<BackendResponse> future;
+        try {
+            Supplier<BackendResponse> call = () -> {
+                try {
+                    return callBackend(username, password);
+                } finally {
+                    bulkhead.release();
+                }
+            };
+            future = CompletableFuture.supplyAsync(TransactionContext.wrap(call), executor);
+        } catch (RuntimeException e) {
+            circuitBreaker.releasePermission();
+            bulkhead.release();
+            return CompletableFuture.failedFuture(new BackendUnavailableException("Ejecutor SOAP no disponible", e));
+        }
+        // Las continuaciones corren en el hilo SOAP o en el del timeout: se envuelven con el contexto
+        return future
+                .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(TransactionContext.wrap(ex -> {
+                    Throwable cause = unwrap(ex);
+                    if (cause instanceof TimeoutException) {
+                        timeouts.increment();
+                        log.error("❌ Timeout de {} ms en autenticación SOAP para usuario {}", timeoutMs, username);
+                        throw new BackendUnavailableException("Timeout en autenticación SOAP", cause);
+                    }
+                    throw cause instanceof RuntimeException runtime ? runtime : new CompletionException(cause);
+                }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "authSoap";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("virtualThreads", virtualThreads);
+        metrics.put("timeouts", timeouts.sum());
+        metrics.put("coalescing", Map.of(
+                "enabled", coalesceEnabled,
+                "backendCalls", leaderCalls.sum(),
+                "coalesced", coalesced.sum(),
+                "inFlight", inFlight.size()));
+        metrics.put("bulkhead", bulkhead.getMetrics());
+        metrics.put("circuitBreaker", circuitBreaker.getMetrics());
+        return metrics;
+    }
+
+    // Clave de coalescencia: el usuario y un SHA-256 de la contraseña, nunca la contraseña en claro
+    private static String coalesceKey(String username, String password) {
+        MessageDigest digest = SHA256.get();
+        byte[] hash = digest.digest((password == null ? "" : password).getBytes(StandardCharsets.UTF_8));
+        return username + ':' + Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static BackendResponse join(CompletableFuture<BackendResponse> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = unwrap(e);
+            throw cause instanceof RuntimeException runtime ? runtime : e;
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        return ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+    }
+
+    private void checkCircuit() {
+        long waitMs = circuitBreaker.tryAcquirePermission();
+        if (waitMs > 0) {
+            long retryAfter = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMs + 999));
+            throw new BackendUnavailableException("Circuito SOAP abierto: backend de autenticación no disponible", retryAfter);
+        }
+    }
+
+    private BackendUnavailableException saturated() {
+        return new BackendUnavailableException(
+                "Demasiadas autenticaciones en curso (" + bulkhead.getMaxConcurrent() + ")", 1);
+    }
+
+    // Solo la indisponibilidad del backend cuenta como fallo; las credenciales inválidas son respuestas válidas
+    private BackendResponse callBackend(String username, String password) {
+        long start = System.nanoTime();
+        try {
+            BackendResponse response;
             if (useMock) {
-                return mockAuthSoapClient.authenticate(username);
+                response = mockAuthSoapClient.authenticate(username);
+            } else if ("stream".equalsIgnoreCase(photoMode)) {
+                response = streamingAuthSoapClient.authenticate(username, password);
+            } else {
+                response = realAuthSoapClient.authenticate(username, password);
             }
-            return realAuthSoapClient.authenticate(username, password);
-        } catch (Exception e) {
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            return response;
+        } catch (SoapAuthenticationException e) {
+            circuitBreaker.onSuccess(System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onFailure(System.nanoTime() - start);
             log.error("❌ Error en autenticación SOAP para usuario {}: {}", username, e.getMessage());
+            throw e instanceof BackendUnavailableException ? e
+                    : new BackendUnavailableException("Error de comunicación con servicio de autenticación", e);
+        }
+    }
+
+    // Hilos virtuales cuando el runtime los ofrece (Java 21+); en Java 17 se devuelve null
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) java.util.concurrent.Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
             return null;
         }
     }
+
+    // Alternativa con hilos de plataforma: uno por permiso como máximo, liberados al quedar ociosos
+    private static ExecutorService newBoundedExecutor(int size) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "soap-auth-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
 }
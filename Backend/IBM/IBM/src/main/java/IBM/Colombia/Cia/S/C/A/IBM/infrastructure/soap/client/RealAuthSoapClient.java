@@ -1,8 +1,10 @@
 package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
 
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.BackendUnavailableException;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.SoapAuthenticationException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.RejectionLog;
 import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.*;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -10,23 +12,19 @@ import org.springframework.stereotype.Component;
 @Component
 public class RealAuthSoapClient {
 
-    @Value("${soap.auth.endpoint:http://webhost:8085/back/auth}")
-    private String soapEndpoint;
+    @Autowired
+    private SoapPortPool portPool;
+
+    @Autowired
+    private RejectionLog rejectionLog;
 
     public BackendResponse authenticate(String username, String password) {
-        log.info("Iniciando autenticación SOAP real para usuario: {}", username);
+        log.debug("Iniciando autenticación SOAP real para usuario: {}", username);
 
+        BackendWs port = null;
         try {
-            // Usar las clases generadas del WSDL
-            BackendWsService service = new BackendWsService();
-            BackendWs port = service.getBackend();
-
-            // Configurar la autenticación básica en el cliente SOAP
-            javax.xml.ws.BindingProvider bp = (javax.xml.ws.BindingProvider) port;
-            java.util.Map<String, Object> requestContext = bp.getRequestContext();
-            requestContext.put(javax.xml.ws.BindingProvider.USERNAME_PROPERTY, username);
-            requestContext.put(javax.xml.ws.BindingProvider.PASSWORD_PROPERTY, password);
-            requestContext.put(javax.xml.ws.BindingProvider.ENDPOINT_ADDRESS_PROPERTY, soapEndpoint);
+            // Puerto reutilizado del pool, con la autenticación básica del usuario ya aplicada
+            port = portPool.acquire(username, password);
 
             // Llamar al servicio usando parámetros y holders según la interfaz generada
             javax.xml.ws.Holder<Integer> resultCode = new javax.xml.ws.Holder<>();
@@ -45,26 +43,38 @@ public class RealAuthSoapClient {
             response.setProfilePhoto(profilePhoto.value);
             response.setVideo(video.value);
 
-            log.info("Respuesta SOAP exitosa para usuario: {}, resultCode: {}",
+            log.debug("Respuesta SOAP exitosa para usuario: {}, resultCode: {}",
                     username, response.getResultCode());
 
             return response;
 
         } catch (UserDefinedException fault) {
+            // Credenciales rechazadas: se cuentan, sin línea de log ni stack trace por intento
             UserDefinedFault info = fault.getFaultInfo();
-            log.error("Error SOAP definido por usuario: {}", info.getMessage());
+            rejectionLog.record("401 soapFault");
             throw new SoapAuthenticationException("Autenticación fallida: " + info.getDetail());
 
         } catch (com.sun.xml.ws.client.ClientTransportException e) {
-            log.error("Error de transporte SOAP. El servidor respondió con un error.", e);
             if (e.getMessage() != null && e.getMessage().contains("401")) {
-                throw new SoapAuthenticationException("Credenciales SOAP inválidas o no proporcionadas.", e);
+                rejectionLog.record("401 soapTransport");
+                throw new SoapAuthenticationException("Credenciales SOAP inválidas o no proporcionadas.");
             }
-            throw new SoapAuthenticationException("Error de comunicación con el servicio SOAP.", e);
+            log.error("Error de transporte SOAP. El servidor respondió con un error.", e);
+            throw new BackendUnavailableException("Error de comunicación con el servicio SOAP.", e);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BackendUnavailableException("Autenticación SOAP interrumpida", e);
 
         } catch (Exception e) {
             log.error("Error inesperado en llamada SOAP", e);
-            throw new SoapAuthenticationException("Error de comunicación con servicio de autenticación", e);
+            // Timeouts de conexión/lectura y fallos de red: el backend no está disponible
+            throw new BackendUnavailableException("Error de comunicación con servicio de autenticación", e);
+
+        } finally {
+            if (port != null) {
+                portPool.release(port);
+            }
         }
     }
 }
@@ -0,0 +1,205 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionContext;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.LatencyMetrics;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.LatencyRecorder;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendWs;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendWsService;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.handler.MessageContext;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool acotado de puertos JAX-WS del backend de autenticación.
+ * El BackendWsService (WSDL parseado y modelo del runtime) se crea una sola vez; los puertos
+ * se reutilizan porque son caros de construir, pero no son compartibles entre hilos: las
+ * credenciales de cada usuario viven en el request context del BindingProvider. Por eso cada
+ * préstamo aplica las credenciales y la devolución las borra.
+ */
+@Slf4j
+@Component
+public class SoapPortPool implements MetricsSource {
+
+    private static final String WSDL_RESOURCE = "/wsdl/Auth.wsdl";
+    // Propiedades del runtime JAX-WS RI (JAXWSProperties) para los timeouts HTTP
+    private static final String CONNECT_TIMEOUT = "com.sun.xml.ws.connect.timeout";
+    private static final String REQUEST_TIMEOUT = "com.sun.xml.ws.request.timeout";
+
+    private final String endpoint;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final int maxSize;
+    private final int prefill;
+    private final long acquireTimeoutMs;
+    private final boolean useMock;
+    private final BlockingQueue<BackendWs> idle;
+    private final AtomicInteger created = new AtomicInteger();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final LongAdder acquireTimeouts = new LongAdder();
+    private final LatencyRecorder waitLatency;
+
+    private volatile BackendWsService service;
+
+    public SoapPortPool(@Value("${soap.auth.endpoint:http://webhost:8085/back/auth}") String endpoint,
+                        @Value("${soap.auth.pool.max-size:16}") int maxSize,
+                        @Value("${soap.auth.pool.prefill:2}") int prefill,
+                        @Value("${soap.auth.pool.acquire-timeout-ms:5000}") long acquireTimeoutMs,
+                        @Value("${soap.auth.mock:true}") boolean useMock,
+                        @Value("${soap.auth.connect-timeout-ms:2000}") int connectTimeoutMs,
+                        @Value("${soap.auth.read-timeout-ms:5000}") int readTimeoutMs,
+                        LatencyMetrics latencyMetrics) {
+        this.endpoint = endpoint;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+        this.maxSize = Math.max(1, maxSize);
+        this.prefill = Math.min(prefill, this.maxSize);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.useMock = useMock;
+        this.idle = new ArrayBlockingQueue<>(this.maxSize);
+        this.waitLatency = latencyMetrics.recorder("SoapPortPool.acquire", "wait");
+    }
+
+    // Con el cliente real activo el WSDL se parsea al arrancar y no en el primer login
+    @PostConstruct
+    public void init() {
+        if (useMock) {
+            return;
+        }
+        try {
+            for (int i = 0; i < prefill; i++) {
+                idle.offer(createPort());
+            }
+            log.info("🔌 Pool de puertos SOAP inicializado: {} puertos, máximo {}", idle.size(), maxSize);
+        } catch (RuntimeException e) {
+            // El backend puede no estar listo: los puertos se crearán bajo demanda
+            log.warn("⚠️ No se pudo preinicializar el pool de puertos SOAP: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Presta un puerto con las credenciales del usuario ya aplicadas.
+     * Debe devolverse siempre con {@link #release(BackendWs)}.
+     */
+    public BackendWs acquire(String username, String password) throws InterruptedException {
+        long start = System.nanoTime();
+        BackendWs port = idle.poll();
+        if (port == null) {
+            port = tryCreatePort();
+        }
+        if (port == null) {
+            port = idle.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            if (port == null) {
+                acquireTimeouts.increment();
+                throw new IllegalStateException("No hay puertos SOAP disponibles tras " + acquireTimeoutMs + " ms");
+            }
+        }
+        waitLatency.record(System.nanoTime() - start);
+        inUse.incrementAndGet();
+
+        Map<String, Object> requestContext = ((BindingProvider) port).getRequestContext();
+        requestContext.put(BindingProvider.USERNAME_PROPERTY, username);
+        requestContext.put(BindingProvider.PASSWORD_PROPERTY, password);
+
+        // Propagar el ID de transacción al backend como cabecera HTTP
+        String transactionId = TransactionContext.currentId();
+        if (transactionId != null) {
+            requestContext.put(MessageContext.HTTP_REQUEST_HEADERS,
+                    Map.of(TransactionContext.HEADER, List.of(transactionId)));
+        }
+        return port;
+    }
+
+    // Borra las credenciales antes de que otro hilo pueda recibir el puerto
+    public void release(BackendWs port) {
+        Map<String, Object> requestContext = ((BindingProvider) port).getRequestContext();
+        requestContext.remove(BindingProvider.USERNAME_PROPERTY);
+        requestContext.remove(BindingProvider.PASSWORD_PROPERTY);
+        requestContext.remove(MessageContext.HTTP_REQUEST_HEADERS);
+        inUse.decrementAndGet();
+        if (!idle.offer(port)) {
+            created.decrementAndGet();
+        }
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "soapPortPool";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxSize", maxSize);
+        metrics.put("created", created.get());
+        metrics.put("idle", idle.size());
+        metrics.put("inUse", inUse.get());
+        metrics.put("acquireTimeouts", acquireTimeouts.sum());
+        metrics.put("acquireWait", waitLatency.snapshot());
+        return metrics;
+    }
+
+    private BackendWs tryCreatePort() {
+        int current;
+        do {
+            current = created.get();
+            if (current >= maxSize) {
+                return null;
+            }
+        } while (!created.compareAndSet(current, current + 1));
+        try {
+            return newPort();
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private BackendWs createPort() {
+        created.incrementAndGet();
+        try {
+            return newPort();
+        } catch (RuntimeException e) {
+            created.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private BackendWs newPort() {
+        BackendWs port = getService().getBackend();
+        Map<String, Object> requestContext = ((BindingProvider) port).getRequestContext();
+        requestContext.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, endpoint);
+        requestContext.put(CONNECT_TIMEOUT, connectTimeoutMs);
+        requestContext.put(REQUEST_TIMEOUT, readTimeoutMs);
+        return port;
+    }
+
+    private BackendWsService getService() {
+        BackendWsService current = service;
+        if (current == null) {
+            synchronized (this) {
+                current = service;
+                if (current == null) {
+                    // WSDL empaquetado en el classpath: no depende de rutas de la máquina de compilación
+                    URL wsdl = SoapPortPool.class.getResource(WSDL_RESOURCE);
+                    current = wsdl != null ? new BackendWsService(wsdl) : new BackendWsService();
+                    service = current;
+                }
+            }
+        }
+        return current;
+    }
+}
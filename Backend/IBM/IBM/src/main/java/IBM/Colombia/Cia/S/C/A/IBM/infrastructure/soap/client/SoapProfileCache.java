@@ -0,0 +1,263 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.SoapAuthenticationException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Caché opcional de perfiles SOAP delante de AuthSoapClient.
+ * La clave es el usuario más un HMAC-SHA256 de la contraseña con un secreto aleatorio por
+ * proceso: un acierto solo es posible con la contraseña correcta, la contraseña nunca se guarda
+ * y, sin el secreto (que no sale de memoria), las claves no permiten probar contraseñas.
+ * Un HMAC cuesta microsegundos, así que se calcula en cada login sin penalizar los fallidos. El tamaño se acota por peso
+ * (la foto en Base64 domina) y los rechazos se cachean con un TTL corto.
+ * La cola de inserción usa borrado perezoso: los nodos de entradas ya retiradas o sustituidas se
+ * ignoran al desalojar y se purgan en bloque cuando superan a las entradas vivas, así que ninguna
+ * operación recorre la cola. Un índice por usuario evita recorrer el mapa en invalidate.
+ */
+@Component
+public class SoapProfileCache implements MetricsSource {
+
+    private static final int ENTRY_OVERHEAD_BYTES = 256;
+
+    private record Entry(String username, BackendResponse response, String failureMessage,
+                         long expiresAtMillis, long weight) {
+        boolean negative() {
+            return failureMessage != null;
+        }
+    }
+
+    // Nodo de la cola de inserción: obsoleto si el mapa ya no tiene esa misma entrada para la clave
+    private record Node(String key, Entry entry) {
+    }
+
+    private final boolean enabled;
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final long maxWeight;
+    // Mac no es seguro entre hilos: una instancia por hilo inicializada con el secreto del proceso
+    private final ThreadLocal<Mac> hmac;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Node> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Tamaño aproximado de la cola (size() de ConcurrentLinkedQueue es lineal)
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicBoolean compacting = new AtomicBoolean();
+    private final ConcurrentHashMap<String, Set<String>> keysByUsername = new ConcurrentHashMap<>();
+    private final AtomicLong totalWeight = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder negativeHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SoapProfileCache(@Value("${soap.auth.profile-cache.enabled:false}") boolean enabled,
+                            @Value("${soap.auth.profile-cache.ttl:10m}") Duration ttl,
+                            @Value("${soap.auth.profile-cache.negative-ttl:10s}") Duration negativeTtl,
+                            @Value("${soap.auth.profile-cache.max-weight-bytes:33554432}") long maxWeight) {
+        this.enabled = enabled;
+        this.ttlMillis = ttl.toMillis();
+        this.negativeTtlMillis = negativeTtl.toMillis();
+        this.maxWeight = maxWeight;
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, "HmacSHA256");
+        this.hmac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance("HmacSHA256");
+                mac.init(key);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 no disponible", e);
+            }
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String keyFor(String username, String password) {
+        // doFinal reinicia el Mac: la instancia queda lista para el siguiente login del hilo
+        byte[] hash = hmac.get().doFinal((password == null ? "" : password).getBytes(StandardCharsets.UTF_8));
+        return username + ':' + Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Devuelve el perfil cacheado, null si no hay entrada vigente, o relanza el rechazo
+     * cacheado como SoapAuthenticationException.
+     */
+    public BackendResponse get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null || System.currentTimeMillis() >= entry.expiresAtMillis()) {
+            if (entry != null) {
+                remove(key, entry);
+            }
+            misses.increment();
+            return null;
+        }
+        if (entry.negative()) {
+            negativeHits.increment();
+            throw new SoapAuthenticationException(entry.failureMessage());
+        }
+        hits.increment();
+        return entry.response();
+    }
+
+    // Solo se cachean autenticaciones exitosas; cualquier otro código se trata como rechazo
+    public void put(String key, String username, BackendResponse response) {
+        if (response == null || response.getResultCode() != 200) {
+            putFailure(key, username, "Autenticación SOAP fallida: código "
+                    + (response == null ? "desconocido" : response.getResultCode()));
+            return;
+        }
+        store(key, new Entry(username, response, null,
+                System.currentTimeMillis() + ttlMillis, weigh(username, response)));
+    }
+
+    public void putFailure(String key, String username, String message) {
+        if (negativeTtlMillis <= 0) {
+            return;
+        }
+        store(key, new Entry(username, null, message,
+                System.currentTimeMillis() + negativeTtlMillis, ENTRY_OVERHEAD_BYTES + username.length() * 2L));
+    }
+
+    // Invalidación explícita, por ejemplo tras un cambio de perfil o contraseña
+    public void invalidate(String username) {
+        Set<String> keys = keysByUsername.get(username);
+        if (keys == null) {
+            return;
+        }
+        for (String key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                remove(key, entry);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        entries.forEach(this::remove);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "soapProfileCache";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("size", entries.size());
+        metrics.put("weightBytes", totalWeight.get());
+        metrics.put("maxWeightBytes", maxWeight);
+        metrics.put("hits", hits.sum());
+        metrics.put("negativeHits", negativeHits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("evictions", evictions.sum());
+        return metrics;
+    }
+
+    private void store(String key, Entry entry) {
+        if (entry.weight() > maxWeight) {
+            return;
+        }
+        // Mapa e índice se actualizan bajo el bloqueo del usuario en keysByUsername
+        Entry[] previous = new Entry[1];
+        keysByUsername.compute(entry.username(), (username, keys) -> {
+            Set<String> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+            previous[0] = entries.put(key, entry);
+            indexed.add(key);
+            return indexed;
+        });
+        if (previous[0] != null) {
+            totalWeight.addAndGet(-previous[0].weight());
+        }
+        // Una entrada sustituida deja su nodo obsoleto; la nueva va al final de la cola
+        insertionOrder.offer(new Node(key, entry));
+        queued.incrementAndGet();
+        totalWeight.addAndGet(entry.weight());
+        evictIfNeeded();
+        compactIfNeeded();
+    }
+
+    // Se descartan primero las entradas más antiguas hasta volver al peso máximo
+    private void evictIfNeeded() {
+        while (totalWeight.get() > maxWeight) {
+            Node oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            // Un nodo obsoleto no encuentra su entrada y se descarta sin más
+            if (remove(oldest.key(), oldest.entry())) {
+                evictions.increment();
+            }
+        }
+    }
+
+    // Los nodos obsoletos (caducados, invalidados, sustituidos) se purgan cuando duplican a las
+    // entradas vivas: el recorrido completo se amortiza entre todas las inserciones que lo provocan
+    private void compactIfNeeded() {
+        if (queued.get() <= 2 * entries.size() + 64 || !compacting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            insertionOrder.removeIf(node -> entries.get(node.key()) != node.entry());
+            queued.set(insertionOrder.size());
+        } finally {
+            compacting.set(false);
+        }
+    }
+
+    private boolean remove(String key, Entry entry) {
+        boolean[] removed = new boolean[1];
+        keysByUsername.compute(entry.username(), (username, keys) -> {
+            removed[0] = entries.remove(key, entry);
+            if (removed[0] && keys != null) {
+                keys.remove(key);
+            }
+            return keys == null || keys.isEmpty() ? null : keys;
+        });
+        if (removed[0]) {
+            totalWeight.addAndGet(-entry.weight());
+        }
+        return removed[0];
+    }
+
+    private static long weigh(String username, BackendResponse response) {
+        // La foto en streaming se pesa por sus bytes, sin materializar la data URI
+        long photoBytes = response instanceof StreamedBackendResponse streamed
+                ? (streamed.getPhoto() != null ? streamed.getPhoto().length() : 0)
+                : 2L * length(response.getProfilePhoto());
+        return ENTRY_OVERHEAD_BYTES + photoBytes
+                + 2L * (username.length()
+                + length(response.getFirstName())
+                + length(response.getLastName())
+                + length(response.getVideo()));
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length();
+    }
+}
@@ -0,0 +1,29 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ProfilePhoto;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendResponse;
+
+/**
+ * Respuesta del backend cuya foto se leyó en streaming como bytes.
+ * getProfilePhoto() solo construye la data URI si algún llamador antiguo la pide.
+ */
+public class StreamedBackendResponse extends BackendResponse {
+
+    private final ProfilePhoto photo;
+
+    public StreamedBackendResponse(ProfilePhoto photo) {
+        this.photo = photo;
+    }
+
+    public ProfilePhoto getPhoto() {
+        return photo;
+    }
+
+    @Override
+    public String getProfilePhoto() {
+        if (profilePhoto == null && photo != null) {
+            profilePhoto = photo.toDataUri();
+        }
+        return profilePhoto;
+    }
+}
@@ -0,0 +1,457 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ProfilePhoto;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionContext;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.BackendUnavailableException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.exception.SoapAuthenticationException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.RejectionLog;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendWsService;
+import lombok.extern.slf4j.Slf4j;
+import org.jvnet.staxex.Base64Data;
+import org.jvnet.staxex.XMLStreamReaderEx;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.ws.BindingProvider;
+import javax.xml.ws.Dispatch;
+import javax.xml.ws.Service;
+import javax.xml.ws.handler.MessageContext;
+import javax.xml.ws.soap.MTOMFeature;
+import javax.xml.ws.soap.SOAPFaultException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Cliente SOAP que lee la foto de perfil en streaming (soap.auth.photo-mode=stream).
+ * Usa un Dispatch en modo PAYLOAD para recorrer la respuesta con StAX: si el backend envía la
+ * foto como adjunto MTOM/XOP se toman los bytes del adjunto tal cual; si llega como texto
+ * Base64 se decodifica por bloques a un buffer reutilizable. Así la foto nunca existe como
+ * String en el cliente y llega a la respuesta HTTP como bytes (ver ProfilePhoto).
+ */
+@Slf4j
+@Component
+public class StreamingAuthSoapClient {
+
+    private static final String NAMESPACE = "http://example.com/sample";
+    private static final String WSDL_RESOURCE = "/wsdl/Auth.wsdl";
+    private static final String CONNECT_TIMEOUT = "com.sun.xml.ws.connect.timeout";
+    private static final String REQUEST_TIMEOUT = "com.sun.xml.ws.request.timeout";
+    private static final int TEXT_CHUNK = 8 * 1024;
+    // Los buffers por hilo más grandes que esto no se conservan entre llamadas
+    private static final int MAX_RETAINED_BUFFER = 4 * 1024 * 1024;
+
+    // La respuesta viene de la red: sin DTD ni entidades externas (XXE)
+    private static final XMLInputFactory INPUT_FACTORY = newInputFactory();
+    // Crear la factoría recorre el ServiceLoader: una sola, endurecida; newTransformer se serializa
+    private static final TransformerFactory TRANSFORMER_FACTORY = newTransformerFactory();
+    private static final ThreadLocal<PhotoBuffer> BUFFERS = ThreadLocal.withInitial(PhotoBuffer::new);
+
+    private final String endpoint;
+    private final boolean mtomEnabled;
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    // Los Dispatch no son compartibles entre hilos (request context); se reutilizan como los puertos
+    private final ConcurrentLinkedQueue<Dispatch<Source>> idle = new ConcurrentLinkedQueue<>();
+
+    private volatile Service service;
+
+    @Autowired
+    private RejectionLog rejectionLog;
+
+    public StreamingAuthSoapClient(@Value("${soap.auth.endpoint:http://webhost:8085/back/auth}") String endpoint,
+                                   @Value("${soap.auth.mtom.enabled:true}") boolean mtomEnabled,
+                                   @Value("${soap.auth.connect-timeout-ms:2000}") int connectTimeoutMs,
+                                   @Value("${soap.auth.read-timeout-ms:5000}") int readTimeoutMs) {
+        this.endpoint = endpoint;
+        this.mtomEnabled = mtomEnabled;
+        this.connectTimeoutMs = connectTimeoutMs;
+        this.readTimeoutMs = readTimeoutMs;
+    }
+
+    public StreamedBackendResponse authenticate(String username, String password) {
+        log.debug("Iniciando autenticación SOAP en streaming para usuario: {}", username);
+        Dispatch<Source> dispatch = acquire(username, password);
+        try {
+            Source reply = dispatch.invoke(new StreamSource(new StringReader(requestPayload(username, password))));
+            StreamedBackendResponse response = parse(reply);
+            log.debug("Respuesta SOAP exitosa para usuario: {}, resultCode: {}", username, response.getResultCode());
+            return response;
+
+        } catch (SOAPFaultException fault) {
+            // El UserDefinedFault del WSDL llega como detalle del fault SOAP: credenciales rechazadas,
+            // se cuentan sin línea de log ni stack trace por intento
+            if (fault.getFault() != null && fault.getFault().hasDetail()) {
+                rejectionLog.record("401 soapFault");
+                throw new SoapAuthenticationException("Autenticación fallida: " + fault.getMessage());
+            }
+            throw new BackendUnavailableException("Fault SOAP del servicio de autenticación", fault);
+
+        } catch (com.sun.xml.ws.client.ClientTransportException e) {
+            if (e.getMessage() != null && e.getMessage().contains("401")) {
+                rejectionLog.record("401 soapTransport");
+                throw new SoapAuthenticationException("Credenciales SOAP inválidas o no proporcionadas.");
+            }
+            log.error("Error de transporte SOAP. El servidor respondió con un error.", e);
+            throw new BackendUnavailableException("Error de comunicación con el servicio SOAP.", e);
+
+        } catch (SoapAuthenticationException | BackendUnavailableException e) {
+            throw e;
+
+        } catch (Exception e) {
+            log.error("Error inesperado en llamada SOAP", e);
+            throw new BackendUnavailableException("Error de comunicación con servicio de autenticación", e);
+
+        } finally {
+            release(dispatch);
+        }
+    }
+
+    private Dispatch<Source> acquire(String username, String password) {
+        Dispatch<Source> dispatch = idle.poll();
+        if (dispatch == null) {
+            dispatch = getService().createDispatch(BackendWsService.Backend, Source.class, Service.Mode.PAYLOAD,
+                    new MTOMFeature(mtomEnabled));
+            Map<String, Object> requestContext = dispatch.getRequestContext();
+            requestContext.put(BindingProvider.ENDPOINT_ADDRESS_PROPERTY, endpoint);
+            requestContext.put(CONNECT_TIMEOUT, connectTimeoutMs);
+            requestContext.put(REQUEST_TIMEOUT, readTimeoutMs);
+        }
+        Map<String, Object> requestContext = dispatch.getRequestContext();
+        requestContext.put(BindingProvider.USERNAME_PROPERTY, username);
+        requestContext.put(BindingProvider.PASSWORD_PROPERTY, password);
+        String transactionId = TransactionContext.currentId();
+        if (transactionId != null) {
+            requestContext.put(MessageContext.HTTP_REQUEST_HEADERS,
+                    Map.of(TransactionContext.HEADER, List.of(transactionId)));
+        }
+        return dispatch;
+    }
+
+    private void release(Dispatch<Source> dispatch) {
+        Map<String, Object> requestContext = dispatch.getRequestContext();
+        requestContext.remove(BindingProvider.USERNAME_PROPERTY);
+        requestContext.remove(BindingProvider.PASSWORD_PROPERTY);
+        requestContext.remove(MessageContext.HTTP_REQUEST_HEADERS);
+        idle.offer(dispatch);
+    }
+
+    private Service getService() {
+        Service current = service;
+        if (current == null) {
+            synchronized (this) {
+                current = service;
+                if (current == null) {
+                    URL wsdl = StreamingAuthSoapClient.class.getResource(WSDL_RESOURCE);
+                    current = Service.create(wsdl, BackendWsService.SERVICE);
+                    service = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    // Elemento envoltorio document/literal; los hijos no están calificados (sin elementFormDefault)
+    private static String requestPayload(String username, String password) {
+        return "<tns:backend xmlns:tns=\"" + NAMESPACE + "\"><user>" + escape(username)
+                + "</user><password>" + escape(password) + "</password></tns:backend>";
+    }
+
+    private static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> escaped.append("&lt;");
+                case '>' -> escaped.append("&gt;");
+                case '&' -> escaped.append("&amp;");
+                case '"' -> escaped.append("&quot;");
+                case '\'' -> escaped.append("&apos;");
+                default -> escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static StreamedBackendResponse parse(Source reply) throws XMLStreamException, TransformerException {
+        XMLStreamReader reader = openReader(reply);
+        ProfilePhoto photo = null;
+        Integer resultCode = null;
+        String firstName = null;
+        String lastName = null;
+        Integer age = null;
+        String video = null;
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (reader.getLocalName()) {
+                    case "resultCode" -> resultCode = Integer.valueOf(reader.getElementText().trim());
+                    case "firstName" -> firstName = reader.getElementText();
+                    case "lastName" -> lastName = reader.getElementText();
+                    case "age" -> age = Integer.valueOf(reader.getElementText().trim());
+                    case "video" -> video = reader.getElementText();
+                    case "profilePhoto" -> photo = readPhoto(reader);
+                    default -> { }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        StreamedBackendResponse response = new StreamedBackendResponse(photo);
+        response.setResultCode(resultCode != null ? resultCode : 0);
+        response.setFirstName(firstName);
+        response.setLastName(lastName);
+        response.setAge(age != null ? age : 0);
+        response.setVideo(video);
+        return response;
+    }
+
+    private static XMLStreamReader openReader(Source source) throws XMLStreamException, TransformerException {
+        if (source instanceof StAXSource stax && stax.getXMLStreamReader() != null) {
+            return stax.getXMLStreamReader();
+        }
+        if (source instanceof StreamSource) {
+            return INPUT_FACTORY.createXMLStreamReader(source);
+        }
+        // DOMSource u otras: se serializa una vez para poder recorrerla con StAX
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Transformer transformer;
+        synchronized (TRANSFORMER_FACTORY) {
+            transformer = TRANSFORMER_FACTORY.newTransformer();
+        }
+        transformer.transform(source, new StreamResult(out));
+        return INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static XMLInputFactory newInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private static TransformerFactory newTransformerFactory() {
+        TransformerFactory factory = TransformerFactory.newInstance();
+        try {
+            factory.setFeature(XMLConstants.FEATURE_SECURE_PROCESSING, true);
+        } catch (TransformerConfigurationException e) {
+            throw new IllegalStateException("TransformerFactory sin procesamiento seguro", e);
+        }
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_DTD, "");
+        factory.setAttribute(XMLConstants.ACCESS_EXTERNAL_STYLESHEET, "");
+        return factory;
+    }
+
+    private static ProfilePhoto readPhoto(XMLStreamReader reader) throws XMLStreamException {
+        // MTOM/XOP: el runtime expone el adjunto como Base64Data con los bytes originales
+        if (reader instanceof XMLStreamReaderEx readerEx) {
+            CharSequence content = readerEx.getPCDATA();
+            if (content instanceof Base64Data binary) {
+                byte[] bytes = binary.getExact();
+                return ProfilePhoto.ofBytes(binary.getMimeType(), bytes);
+            }
+            return decodeText(content);
+        }
+
+        PhotoBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        char[] chunk = buffer.chars;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                break;
+            }
+            if (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) {
+                int length = reader.getTextLength();
+                for (int offset = 0; offset < length; ) {
+                    int copied = reader.getTextCharacters(offset, chunk, 0, Math.min(chunk.length, length - offset));
+                    buffer.decode(chunk, 0, copied);
+                    offset += copied;
+                }
+            }
+        }
+        return buffer.toPhoto();
+    }
+
+    private static ProfilePhoto decodeText(CharSequence content) {
+        PhotoBuffer buffer = BUFFERS.get();
+        buffer.reset();
+        char[] chunk = buffer.chars;
+        for (int offset = 0; offset < content.length(); ) {
+            int length = Math.min(chunk.length, content.length() - offset);
+            for (int i = 0; i < length; i++) {
+                chunk[i] = content.charAt(offset + i);
+            }
+            buffer.decode(chunk, 0, length);
+            offset += length;
+        }
+        return buffer.toPhoto();
+    }
+
+    /**
+     * Decodificador Base64 incremental sobre un buffer por hilo. Acepta la data URI completa
+     * ("data:image/png;base64,...") o Base64 puro, e ignora espacios y saltos de línea.
+     * Visible en el paquete para probar los cortes entre bloques.
+     */
+    static final class PhotoBuffer {
+
+        private static final int[] DECODE = new int[128];
+        private static final String DATA_PREFIX = "data:";
+        // "data:image/png;base64" ocupa 21; lo que pase de aquí se descarta hasta la coma
+        private static final int MAX_HEADER_LENGTH = 128;
+
+        static {
+            Arrays.fill(DECODE, -1);
+            String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+            for (int i = 0; i < alphabet.length(); i++) {
+                DECODE[alphabet.charAt(i)] = i;
+            }
+        }
+
+        final char[] chars = new char[TEXT_CHUNK];
+        private byte[] bytes = new byte[64 * 1024];
+        private int size;
+        private int quad;
+        private int quadLength;
+        // Cabecera de la data URI mientras no se haya encontrado la coma (acotada)
+        private final StringBuilder header = new StringBuilder();
+        private int headerLength;
+        private boolean inHeader;
+        private boolean started;
+        private String mimeType;
+
+        void reset() {
+            if (bytes.length > MAX_RETAINED_BUFFER) {
+                bytes = new byte[64 * 1024];
+            }
+            size = 0;
+            quad = 0;
+            quadLength = 0;
+            header.setLength(0);
+            headerLength = 0;
+            inHeader = false;
+            started = false;
+            mimeType = null;
+        }
+
+        void decode(char[] src, int from, int length) {
+            int end = from + length;
+            int i = from;
+            if (!started) {
+                while (i < end && Character.isWhitespace(src[i])) {
+                    i++;
+                }
+                if (i == end) {
+                    return;
+                }
+                started = true;
+                // Posible data URI: se confirma carácter a carácter contra "data:"
+                inHeader = true;
+            }
+            if (inHeader) {
+                while (i < end && src[i] != ',') {
+                    char c = src[i];
+                    if (headerLength < DATA_PREFIX.length()
+                            && Character.toLowerCase(c) != DATA_PREFIX.charAt(headerLength)) {
+                        // Base64 puro (':' no es Base64): lo acumulado hasta aquí es contenido
+                        inHeader = false;
+                        ensureCapacity(size + 3);
+                        for (int h = 0; h < header.length(); h++) {
+                            decodeChar(header.charAt(h));
+                        }
+                        header.setLength(0);
+                        break;
+                    }
+                    if (headerLength < MAX_HEADER_LENGTH) {
+                        header.append(c);
+                    }
+                    headerLength++;
+                    i++;
+                }
+                if (inHeader) {
+                    if (i == end) {
+                        return;
+                    }
+                    i++;
+                    inHeader = false;
+                    parseHeader();
+                }
+            }
+            ensureCapacity(size + (end - i) / 4 * 3 + 3);
+            for (; i < end; i++) {
+                decodeChar(src[i]);
+            }
+        }
+
+        // Sin comprobación de capacidad: el llamador reserva 3 bytes por cada 4 caracteres
+        private void decodeChar(char c) {
+            int value = c < 128 ? DECODE[c] : -1;
+            if (value < 0) {
+                return;
+            }
+            quad = (quad << 6) | value;
+            if (++quadLength == 4) {
+                bytes[size++] = (byte) (quad >> 16);
+                bytes[size++] = (byte) (quad >> 8);
+                bytes[size++] = (byte) quad;
+                quad = 0;
+                quadLength = 0;
+            }
+        }
+
+        ProfilePhoto toPhoto() {
+            // Relleno '=': los bits pendientes forman los últimos uno o dos bytes
+            if (quadLength == 2) {
+                ensureCapacity(size + 1);
+                bytes[size++] = (byte) (quad >> 4);
+            } else if (quadLength == 3) {
+                ensureCapacity(size + 2);
+                bytes[size++] = (byte) (quad >> 10);
+                bytes[size++] = (byte) (quad >> 2);
+            }
+            if (!started) {
+                // Elemento vacío: se conserva el "" que devolvía el cliente JAX-WS
+                return ProfilePhoto.ofDataUri("");
+            }
+            return ProfilePhoto.ofBytes(mimeType, Arrays.copyOf(bytes, size));
+        }
+
+        private void parseHeader() {
+            // "data:image/png;base64"; una cabecera truncada no aporta tipo (se detecta por contenido)
+            int semicolon = header.indexOf(";");
+            if (headerLength <= MAX_HEADER_LENGTH && semicolon > DATA_PREFIX.length()) {
+                mimeType = header.substring(DATA_PREFIX.length(), semicolon);
+            }
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.local;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendWs;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.UserDefinedException;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.UserDefinedFault;
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.jws.WebService;
+import javax.xml.ws.BindingType;
+import javax.xml.ws.Endpoint;
+import javax.xml.ws.Holder;
+import javax.xml.ws.soap.SOAPBinding;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Backend SOAP local que implementa el port type BackendWs de Auth.wsdl sobre el servidor HTTP
+ * del JDK. Permite medir el camino completo del cliente real (serialización, transporte y
+ * parseo) sin el backend de webhost:8085, inyectando latencia, errores, faults y respuestas 401.
+ * Se usa desde el perfil "local-soap-backend" o directamente desde pruebas con start()/stop().
+ */
+@Slf4j
+public class LocalSoapBackend {
+
+    public enum LatencyDistribution { FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL }
+
+    /**
+     * Parámetros del backend simulado. Las tasas van de 0.0 a 1.0.
+     * En LOGNORMAL meanMs es la mediana y sigma la dispersión; toda latencia se limita a [minMs, maxMs].
+     */
+    public record Settings(int port, String path,
+                           LatencyDistribution distribution, long meanMs, long minMs, long maxMs, double sigma,
+                           double errorRate, double faultRate, double unauthorizedRate,
+                           boolean requireBasicAuth, int photoBytes, int threads) {
+
+        public static Settings defaults() {
+            return new Settings(8095, "/back/auth", LatencyDistribution.FIXED, 0, 0, 10_000, 0.5,
+                    0.0, 0.0, 0.0, true, 64 * 1024, 32);
+        }
+    }
+
+    private final Settings settings;
+    private final String photo;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder faults = new LongAdder();
+    private final LongAdder unauthorized = new LongAdder();
+
+    private HttpServer server;
+    private Endpoint endpoint;
+    private ExecutorService executor;
+
+    public LocalSoapBackend(Settings settings) {
+        this.settings = settings;
+        this.photo = randomPhoto(settings.photoBytes());
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(settings.threads(), runnable -> {
+            Thread thread = new Thread(runnable, "local-soap-backend-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        server = HttpServer.create(new InetSocketAddress(settings.port()), 0);
+        server.setExecutor(executor);
+        HttpContext context = server.createContext(settings.path());
+        context.getFilters().add(new UnauthorizedFilter());
+
+        endpoint = Endpoint.create(new Port(this));
+        endpoint.publish(context);
+        server.start();
+        log.info("🧪 Backend SOAP local escuchando en {}", getAddress());
+    }
+
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+        endpoint.stop();
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        endpoint = null;
+        executor = null;
+    }
+
+    public String getAddress() {
+        int port = server != null ? server.getAddress().getPort() : settings.port();
+        return "http://localhost:" + port + settings.path();
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("requests", requests.sum());
+        metrics.put("errors", errors.sum());
+        metrics.put("faults", faults.sum());
+        metrics.put("unauthorized", unauthorized.sum());
+        return metrics;
+    }
+
+    private void handle(String user, Holder<Integer> resultCode, Holder<String> firstName, Holder<String> lastName,
+                        Holder<Integer> age, Holder<String> profilePhoto, Holder<String> video)
+            throws UserDefinedException {
+        requests.increment();
+        sleep(nextLatencyMs());
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextDouble() < settings.errorRate()) {
+            errors.increment();
+            // El runtime lo devuelve como SOAP fault genérico (HTTP 500)
+            throw new IllegalStateException("Error inyectado por el backend SOAP local");
+        }
+        if (random.nextDouble() < settings.faultRate()) {
+            faults.increment();
+            UserDefinedFault fault = new UserDefinedFault();
+            fault.setAdditionalInfo(500);
+            fault.setDetail("Fault inyectado para " + user);
+            fault.setMessage("UserDefinedFault simulado");
+            throw new UserDefinedException("UserDefinedFault simulado", fault);
+        }
+
+        resultCode.value = 200;
+        firstName.value = "Usuario";
+        lastName.value = user;
+        age.value = 30;
+        profilePhoto.value = photo;
+        video.value = "https://youtube.com/shorts/local-soap-backend";
+    }
+
+    private long nextLatencyMs() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double value = switch (settings.distribution()) {
+            case FIXED -> settings.meanMs();
+            case UNIFORM -> settings.minMs() + random.nextDouble() * (settings.maxMs() - settings.minMs());
+            case EXPONENTIAL -> -settings.meanMs() * Math.log(1.0 - random.nextDouble());
+            case LOGNORMAL -> settings.meanMs() * Math.exp(settings.sigma() * random.nextGaussian());
+        };
+        return Math.max(settings.minMs(), Math.min(settings.maxMs(), Math.round(value)));
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Contenido fijo y reproducible: el tamaño es lo que importa para la carga
+    private static String randomPhoto(int bytes) {
+        if (bytes <= 0) {
+            return "";
+        }
+        byte[] data = new byte[bytes];
+        new Random(42).nextBytes(data);
+        return Base64.getEncoder().encodeToString(data);
+    }
+
+    // 401 antes de llegar al runtime JAX-WS: sin Basic auth o por la tasa configurada
+    private final class UnauthorizedFilter extends Filter {
+
+        @Override
+        public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            boolean missing = settings.requireBasicAuth()
+                    && (authorization == null || !authorization.startsWith("Basic "));
+            if (missing || ThreadLocalRandom.current().nextDouble() < settings.unauthorizedRate()) {
+                unauthorized.increment();
+                exchange.getResponseHeaders().add("WWW-Authenticate", "Basic realm=\"backend\"");
+                exchange.sendResponseHeaders(401, -1);
+                exchange.close();
+                return;
+            }
+            chain.doFilter(exchange);
+        }
+
+        @Override
+        public String description() {
+            return "Respuestas 401 simuladas";
+        }
+    }
+
+    @WebService(serviceName = "BackendWsService", portName = "backend",
+            targetNamespace = "http://example.com/sample",
+            endpointInterface = "IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.BackendWs")
+    @BindingType(SOAPBinding.SOAP12HTTP_BINDING)
+    public static class Port implements BackendWs {
+
+        private final LocalSoapBackend backend;
+
+        Port(LocalSoapBackend backend) {
+            this.backend = backend;
+        }
+
+        @Override
+        public void backend(String user, String password, Holder<Integer> resultCode, Holder<String> firstName,
+                            Holder<String> lastName, Holder<Integer> age, Holder<String> profilePhoto,
+                            Holder<String> video) throws UserDefinedException {
+            backend.handle(user, resultCode, firstName, lastName, age, profilePhoto, video);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.local;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * Arranca el backend SOAP local con el perfil "local-soap-backend".
+ * El perfil apunta además el cliente real a este backend (application-local-soap-backend.properties).
+ */
+@Component
+@Profile("local-soap-backend")
+public class LocalSoapBackendRunner implements MetricsSource {
+
+    private final LocalSoapBackend backend;
+
+    public LocalSoapBackendRunner(
+            @Value("${soap.local-backend.port:8095}") int port,
+            @Value("${soap.local-backend.path:/back/auth}") String path,
+            @Value("${soap.local-backend.latency.distribution:FIXED}") LocalSoapBackend.LatencyDistribution distribution,
+            @Value("${soap.local-backend.latency.mean-ms:0}") long meanMs,
+            @Value("${soap.local-backend.latency.min-ms:0}") long minMs,
+            @Value("${soap.local-backend.latency.max-ms:10000}") long maxMs,
+            @Value("${soap.local-backend.latency.sigma:0.5}") double sigma,
+            @Value("${soap.local-backend.error-rate:0.0}") double errorRate,
+            @Value("${soap.local-backend.fault-rate:0.0}") double faultRate,
+            @Value("${soap.local-backend.unauthorized-rate:0.0}") double unauthorizedRate,
+            @Value("${soap.local-backend.require-basic-auth:true}") boolean requireBasicAuth,
+            @Value("${soap.local-backend.photo-bytes:65536}") int photoBytes,
+            @Value("${soap.local-backend.threads:32}") int threads) {
+        this.backend = new LocalSoapBackend(new LocalSoapBackend.Settings(port, path, distribution, meanMs, minMs,
+                maxMs, sigma, errorRate, faultRate, unauthorizedRate, requireBasicAuth, photoBytes, threads));
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            backend.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo iniciar el backend SOAP local", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        backend.stop();
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "localSoapBackend";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        return backend.getMetrics();
+    }
+}
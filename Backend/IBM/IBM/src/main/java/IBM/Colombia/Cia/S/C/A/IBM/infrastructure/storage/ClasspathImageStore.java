@@ -0,0 +1,80 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Imágenes empaquetadas en el WAR (image.cache.directory, por defecto static/images).
+ * Es el último almacén consultado: el sistema de ficheros puede sobrescribir cualquier imagen.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ClasspathImageStore implements ImageStore {
+
+    private final String directory;
+
+    public ClasspathImageStore(@Value("${image.cache.directory:static/images}") String directory) {
+        this.directory = directory.endsWith("/") ? directory.substring(0, directory.length() - 1) : directory;
+    }
+
+    @Override
+    public String getName() {
+        return "classpath";
+    }
+
+    @Override
+    public StoredImage find(String path) throws IOException {
+        ClassPathResource resource = new ClassPathResource(path);
+        try (InputStream is = resource.getInputStream()) {
+            return new StoredImage(ByteBuffer.wrap(is.readAllBytes()).asReadOnlyBuffer(), fileOf(resource));
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        List<String> paths = new ArrayList<>();
+        Resource[] resources = new PathMatchingResourcePatternResolver()
+                .getResources("classpath*:" + directory + "/**/*");
+        for (Resource resource : resources) {
+            String path = logicalPath(resource);
+            if (resource.isReadable() && path != null) {
+                paths.add(path);
+            }
+        }
+        return paths;
+    }
+
+    // "static/images/avatar_1.png": la misma ruta que usan los llamadores de getImageAsBase64
+    private String logicalPath(Resource resource) throws IOException {
+        String url = resource.getURL().toString();
+        if (url.endsWith("/")) {
+            return null;
+        }
+        int index = url.lastIndexOf(directory + "/");
+        return index >= 0 ? url.substring(index) : null;
+    }
+
+    // Solo cuando el classpath está desplegado en disco (permite sendfile)
+    private static Path fileOf(Resource resource) {
+        try {
+            return resource.isFile() ? resource.getFile().toPath() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
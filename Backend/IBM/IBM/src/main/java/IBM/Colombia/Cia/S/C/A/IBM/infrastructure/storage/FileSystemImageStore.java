@@ -0,0 +1,354 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.storage;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.MetricsSource;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Imágenes en image.storage.path, consultadas antes que las del classpath: basta con copiar un
+ * fichero para añadir o sustituir una imagen sin reconstruir el WAR. "static/images/x.png" se
+ * resuelve como "<image.storage.path>/x.png".
+ * Los ficheros se leen con FileChannel.map y las imágenes calientes se guardan en buffers
+ * directos (fuera del heap) con un LRU acotado por bytes. Un WatchService invalida las entradas
+ * cuando los ficheros cambian; una lectura que coincide con una invalidación no se cachea.
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class FileSystemImageStore implements ImageStore, MetricsSource {
+
+    // Variantes generadas por AvatarVariantService y fotos guardadas por AvatarService:
+    // no son imágenes de origen y no se precargan
+    private static final String VARIANTS_DIRECTORY = "variants";
+    private static final String AVATARS_DIRECTORY = "avatars";
+
+    private record Entry(ByteBuffer content, Path file, long lastModified) {
+    }
+
+    private final Path root;
+    private final String logicalPrefix;
+    private final boolean watch;
+    private final long maxOffHeapBytes;
+
+    private final LinkedHashMap<String, Entry> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes;
+    // Número de invalidaciones, protegido por el monitor de cache: si cambia durante una lectura,
+    // el contenido leído puede ser anterior al cambio y no se guarda
+    private long generation;
+    private final List<Consumer<String>> listeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder mappedReads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder watchEvents = new LongAdder();
+
+    private WatchService watchService;
+    private Thread watcherThread;
+
+    public FileSystemImageStore(@Value("${image.storage.path:./images}") String root,
+                                @Value("${image.cache.directory:static/images}") String directory,
+                                @Value("${image.store.watch:true}") boolean watch,
+                                @Value("${image.store.off-heap.max-bytes:67108864}") long maxOffHeapBytes) {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        this.logicalPrefix = directory.endsWith("/") ? directory : directory + "/";
+        this.watch = watch;
+        this.maxOffHeapBytes = maxOffHeapBytes;
+    }
+
+    @PostConstruct
+    public void start() {
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            log.warn("⚠️ No se pudo crear el directorio de imágenes {}: {}", root, e.getMessage());
+            return;
+        }
+        if (!watch) {
+            return;
+        }
+        try {
+            watchService = root.getFileSystem().newWatchService();
+            registerTree(root);
+            watcherThread = new Thread(this::watchLoop, "image-store-watcher");
+            watcherThread.setDaemon(true);
+            watcherThread.start();
+            log.info("🔌 Vigilando cambios de imágenes en {}", root);
+        } catch (IOException e) {
+            log.warn("⚠️ WatchService no disponible para {}: {}", root, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("⚠️ Error al cerrar el WatchService: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "filesystem";
+    }
+
+    @Override
+    public boolean cachesContent() {
+        return true;
+    }
+
+    @Override
+    public StoredImage find(String path) throws IOException {
+        if (path == null || !path.startsWith(logicalPrefix)) {
+            return null;
+        }
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(path);
+        }
+        if (entry != null) {
+            // Sin WatchService la vigencia se comprueba con la fecha de modificación
+            if (watchService != null || lastModified(entry.file()) == entry.lastModified()) {
+                hits.increment();
+                return new StoredImage(entry.content().duplicate(), entry.file());
+            }
+            invalidate(path);
+        }
+        Path file = resolve(path);
+        if (file == null) {
+            return null;
+        }
+        misses.increment();
+        long readGeneration;
+        synchronized (cache) {
+            readGeneration = generation;
+        }
+
+        long lastModified;
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            lastModified = Files.getLastModifiedTime(file).toMillis();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Imagen demasiado grande: " + file);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            mappedReads.increment();
+            // Copia única del mapeo a memoria directa: el mapeo se libera y la caché no usa heap
+            content = ByteBuffer.allocateDirect((int) size).put(mapped).flip();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        ByteBuffer readOnly = content.asReadOnlyBuffer();
+        store(path, new Entry(readOnly, file, lastModified), readGeneration);
+        return new StoredImage(readOnly.duplicate(), file);
+    }
+
+    @Override
+    public List<String> list() throws IOException {
+        List<String> paths = new ArrayList<>();
+        if (!Files.isDirectory(root)) {
+            return paths;
+        }
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                return dir.equals(root.resolve(VARIANTS_DIRECTORY)) || dir.equals(root.resolve(AVATARS_DIRECTORY))
+                        ? FileVisitResult.SKIP_SUBTREE
+                        : FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                if (attrs.isRegularFile()) {
+                    paths.add(logicalPath(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return paths;
+    }
+
+    @Override
+    public void addChangeListener(Consumer<String> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public String getMetricsName() {
+        return "imageStore";
+    }
+
+    @Override
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("root", root.toString());
+        synchronized (cache) {
+            metrics.put("entries", cache.size());
+            metrics.put("offHeapBytes", cachedBytes);
+        }
+        metrics.put("maxOffHeapBytes", maxOffHeapBytes);
+        metrics.put("hits", hits.sum());
+        metrics.put("misses", misses.sum());
+        metrics.put("mappedReads", mappedReads.sum());
+        metrics.put("evictions", evictions.sum());
+        metrics.put("watching", watchService != null);
+        metrics.put("watchEvents", watchEvents.sum());
+        return metrics;
+    }
+
+    // Sin salir del directorio raíz ni entrar en el de variantes
+    private Path resolve(String path) {
+        Path file = root.resolve(path.substring(logicalPrefix.length())).normalize();
+        if (!file.startsWith(root) || file.startsWith(root.resolve(VARIANTS_DIRECTORY))) {
+            return null;
+        }
+        return Files.isRegularFile(file) ? file : null;
+    }
+
+    private void store(String path, Entry entry, long readGeneration) {
+        long size = entry.content().capacity();
+        if (size > maxOffHeapBytes) {
+            return;
+        }
+        synchronized (cache) {
+            if (generation != readGeneration) {
+                return;
+            }
+            Entry previous = cache.put(path, entry);
+            if (previous != null) {
+                cachedBytes -= previous.content().capacity();
+            }
+            cachedBytes += size;
+            var iterator = cache.entrySet().iterator();
+            while (cachedBytes > maxOffHeapBytes && iterator.hasNext()) {
+                Map.Entry<String, Entry> eldest = iterator.next();
+                cachedBytes -= eldest.getValue().content().capacity();
+                iterator.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private void invalidate(String path) {
+        synchronized (cache) {
+            generation++;
+            Entry removed = cache.remove(path);
+            if (removed != null) {
+                cachedBytes -= removed.content().capacity();
+            }
+        }
+    }
+
+    private void invalidateAll() {
+        synchronized (cache) {
+            generation++;
+            cache.clear();
+            cachedBytes = 0;
+        }
+    }
+
+    private void watchLoop() {
+        while (true) {
+            WatchKey key;
+            try {
+                key = watchService.take();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+            Path directory = (Path) key.watchable();
+            for (WatchEvent<?> event : key.pollEvents()) {
+                watchEvents.increment();
+                if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                    // Se perdieron eventos: cualquier imagen pudo cambiar
+                    invalidateAll();
+                    notifyListeners(null);
+                    continue;
+                }
+                Path changed = directory.resolve((Path) event.context());
+                if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(changed)) {
+                    try {
+                        registerTree(changed);
+                    } catch (IOException e) {
+                        log.warn("⚠️ No se pudo vigilar {}: {}", changed, e.getMessage());
+                    }
+                    continue;
+                }
+                String path = logicalPath(changed);
+                invalidate(path);
+                notifyListeners(path);
+            }
+            key.reset();
+        }
+    }
+
+    // "<image.storage.path>/x.png" -> "static/images/x.png"
+    private String logicalPath(Path file) {
+        return logicalPrefix + root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private void notifyListeners(String path) {
+        for (Consumer<String> listener : listeners) {
+            try {
+                listener.accept(path);
+            } catch (RuntimeException e) {
+                log.warn("⚠️ Error notificando cambio de imagen {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private void registerTree(Path start) throws IOException {
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                if (dir.equals(root.resolve(VARIANTS_DIRECTORY))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+}
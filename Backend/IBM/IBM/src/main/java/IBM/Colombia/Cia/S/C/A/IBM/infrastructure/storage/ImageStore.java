@@ -0,0 +1,54 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Origen de imágenes para ImageBase64Service. Las rutas son lógicas, del estilo
+ * "static/images/avatar_1.png"; cada almacén decide cómo resolverlas. Se consultan por @Order
+ * y gana el primero que tenga la imagen.
+ */
+public interface ImageStore {
+
+    // content es de solo lectura y puede estar fuera del heap; file != null si existe en disco
+    record StoredImage(ByteBuffer content, Path file) {
+        public byte[] toByteArray() {
+            ByteBuffer view = content.duplicate();
+            byte[] bytes = new byte[view.remaining()];
+            view.get(bytes);
+            return bytes;
+        }
+    }
+
+    String getName();
+
+    /**
+     * Imagen de la ruta lógica, o null si este almacén no la tiene.
+     */
+    StoredImage find(String path) throws IOException;
+
+    /**
+     * true si el almacén ya guarda sus imágenes calientes en una caché propia (fuera del heap):
+     * ImageBase64Service no las copia a la suya y las codifica en cada acceso.
+     */
+    default boolean cachesContent() {
+        return false;
+    }
+
+    /**
+     * Rutas lógicas disponibles para precarga; vacío si el almacén no se recorre al arrancar.
+     */
+    default List<String> list() throws IOException {
+        return List.of();
+    }
+
+    /**
+     * Se notifica la ruta lógica de cada imagen creada, modificada o borrada; null significa
+     * que cualquier imagen pudo cambiar.
+     */
+    default void addChangeListener(Consumer<String> listener) {
+    }
+}
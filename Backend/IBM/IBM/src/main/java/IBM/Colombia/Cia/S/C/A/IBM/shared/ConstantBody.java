@@ -0,0 +1,15 @@
+package IBM.Colombia.Cia.S.C.A.IBM.shared;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca handlers que devuelven siempre el mismo cuerpo String (un literal): ApiEnvelopeWriter
+ * lo serializa una sola vez y lo reutiliza en cada respuesta.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConstantBody {
+}
@@ -0,0 +1,68 @@
+package IBM.Colombia.Cia.S.C.A.IBM.shared;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Detección del tipo MIME de una imagen por sus primeros bytes (magic numbers).
+ */
+public final class ImageMimeTypes {
+
+    public static final String DEFAULT = "application/octet-stream";
+
+    private static final Set<String> KNOWN = Set.of("image/png", "image/jpeg", "image/gif", "image/webp", "image/bmp");
+
+    private ImageMimeTypes() {
+    }
+
+    public static String detect(byte[] data, int length) {
+        if (startsWith(data, length, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(data, length, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(data, length, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (length >= 12 && startsWith(data, length, 'R', 'I', 'F', 'F')
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        if (startsWith(data, length, 'B', 'M')) {
+            return "image/bmp";
+        }
+        return DEFAULT;
+    }
+
+    public static String detect(byte[] data) {
+        return detect(data, data.length);
+    }
+
+    /**
+     * Tipo declarado por un tercero (backend SOAP, cabecera de una data URI) si es uno de los
+     * tipos de imagen conocidos; si no, el detectado por contenido. El resultado se puede
+     * escribir sin escapar en JSON o en una cabecera Content-Type.
+     */
+    public static String sanitize(String declared, byte[] data) {
+        if (declared != null) {
+            String normalized = declared.trim().toLowerCase(Locale.ROOT);
+            if (KNOWN.contains(normalized)) {
+                return normalized;
+            }
+        }
+        return detect(data);
+    }
+
+    private static boolean startsWith(byte[] data, int length, int... prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((data[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,14 @@
+package IBM.Colombia.Cia.S.C.A.IBM.shared;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca campos o parámetros cuyo valor nunca debe aparecer en los logs.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.PARAMETER})
+public @interface Sensitive {
+}
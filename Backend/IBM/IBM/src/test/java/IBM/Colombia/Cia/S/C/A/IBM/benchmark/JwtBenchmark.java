@@ -0,0 +1,124 @@
+package IBM.Colombia.Cia.S.C.A.IBM.benchmark;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.JwtUtil;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.jwt.VerifiedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Verificación de un JWT por petición en JwtRequestFilter: la versión original (copiada abajo)
+ * construía la clave y el parser en cada llamada y parseaba el token tres veces; la actual usa
+ * el parser cacheado de JwtUtil y un único verify().
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec -Djmh.include=JwtBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+
+    private static final String SECRET = "clave-de-benchmark-con-mas-de-32-caracteres";
+
+    private JwtUtil jwtUtil;
+    private BaselineJwtUtil baseline;
+    private UserDetails userDetails;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", TimeUnit.HOURS.toMillis(1));
+        jwtUtil.init();
+        baseline = new BaselineJwtUtil(SECRET);
+
+        userDetails = User.withUsername("usuario.prueba").password("").roles("USER").build();
+        token = jwtUtil.generateToken(userDetails);
+    }
+
+    @Benchmark
+    public boolean baselineFilter() {
+        // extractUsername + validateToken(jwt, userDetails), como hacía el filtro
+        String username = baseline.extractUsername(token);
+        return username != null && baseline.validateToken(token, userDetails);
+    }
+
+    @Benchmark
+    public boolean currentFilter() {
+        VerifiedToken verified = jwtUtil.verify(token);
+        return verified.subject() != null && jwtUtil.validateToken(verified, userDetails);
+    }
+
+    @Benchmark
+    public SecretKey baselineKeyOnly() {
+        // Coste de reconstruir la clave HMAC, separado del parser
+        return Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * JwtUtil tal como estaba antes de cachear la clave y el parser, como referencia.
+     */
+    static class BaselineJwtUtil {
+        private final String secret;
+
+        BaselineJwtUtil(String secret) {
+            this.secret = secret;
+        }
+
+        private SecretKey getSigningKey() {
+            byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+            return Keys.hmacShaKeyFor(keyBytes);
+        }
+
+        String extractUsername(String token) {
+            return extractClaim(token, Claims::getSubject);
+        }
+
+        Date extractExpiration(String token) {
+            return extractClaim(token, Claims::getExpiration);
+        }
+
+        <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+            return claimsResolver.apply(extractAllClaims(token));
+        }
+
+        private Claims extractAllClaims(String token) {
+            return Jwts.parserBuilder()
+                    .setSigningKey(getSigningKey())
+                    .build()
+                    .parseClaimsJws(token)
+                    .getBody();
+        }
+
+        private boolean isTokenExpired(String token) {
+            return extractExpiration(token).before(new Date());
+        }
+
+        boolean validateToken(String token, UserDetails userDetails) {
+            final String username = extractUsername(token);
+            return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package IBM.Colombia.Cia.S.C.A.IBM.benchmark;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.context.TransactionIdGenerator;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.logging.BoundedLogRenderer;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.metrics.LatencyMetrics;
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.security.aspect.LoggingAspect;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste por llamada de LoggingAspect.logAround frente a la versión original (copiada abajo).
+ * Los appenders se desconectan: se mide la construcción de mensajes, no la E/S de consola.
+ * Con level=INFO se renderizan todos los estados; con WARN la versión actual no formatea nada.
+ * Ejecutar con: mvn -Pbenchmark test-compile exec:exec -Djmh.include=LoggingAspectBenchmark
+ * (añadir -Djmh.args="-prof gc" para ver la memoria asignada por llamada).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingAspectBenchmark {
+
+    // Método interceptado de ejemplo: un servicio con un argumento y un resultado pequeño
+    public static class SampleService {
+        public String findProfile(String username) {
+            return "profile:" + username;
+        }
+    }
+
+    @Param({"INFO", "WARN"})
+    public String level;
+
+    private LoggingAspect current;
+    private BaselineLoggingAspect baseline;
+    private ProceedingJoinPoint joinPoint;
+
+    @Setup
+    public void setUp() throws Exception {
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        context.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME).detachAndStopAllAppenders();
+        Logger aspectLogger = context.getLogger(LoggingAspect.class);
+        aspectLogger.setLevel(Level.toLevel(level));
+        context.getLogger(BaselineLoggingAspect.class).setLevel(Level.toLevel(level));
+
+        current = new LoggingAspect();
+        ReflectionTestUtils.setField(current, "logRenderer", new BoundedLogRenderer(200));
+        ReflectionTestUtils.setField(current, "latencyMetrics", new LatencyMetrics(Duration.ofSeconds(60)));
+        ReflectionTestUtils.setField(current, "transactionIdGenerator", new TransactionIdGenerator(""));
+        baseline = new BaselineLoggingAspect();
+
+        joinPoint = new StubJoinPoint(SampleService.class.getMethod("findProfile", String.class),
+                new String[]{"username"}, new Object[]{"usuario.prueba"}, "profile:usuario.prueba");
+    }
+
+    @Benchmark
+    public Object baselineLogAround() throws Throwable {
+        return baseline.logAround(joinPoint);
+    }
+
+    @Benchmark
+    public Object currentLogAround() throws Throwable {
+        return current.logAround(joinPoint);
+    }
+
+    /**
+     * logAround tal como estaba antes de la optimización (sin archivo de log), como referencia.
+     */
+    static class BaselineLoggingAspect {
+        private static final org.slf4j.Logger logger = LoggerFactory.getLogger(BaselineLoggingAspect.class);
+
+        private enum OperationState {
+            STARTED("🚀", "Iniciando"),
+            IN_PROGRESS("⚙️", "En proceso"),
+            COMPLETED("✅", "Completado"),
+            WARNING("⚠️", "Advertencia"),
+            ERROR("❌", "Error"),
+            TERMINATED("🛑", "Terminado");
+
+            final String emoji;
+            final String description;
+
+            OperationState(String emoji, String description) {
+                this.emoji = emoji;
+                this.description = description;
+            }
+        }
+
+        Object logAround(ProceedingJoinPoint joinPoint) throws Throwable {
+            String className = joinPoint.getSignature().getDeclaringTypeName();
+            String methodName = joinPoint.getSignature().getName();
+            if (className.contains("FileLoggingService")) {
+                return joinPoint.proceed();
+            }
+            Object[] args = joinPoint.getArgs();
+            String transactionId = getOrCreateTransactionId();
+            long startTime = System.currentTimeMillis();
+            String httpInfo = "🔧 Non-HTTP Context";
+
+            MDC.put("transactionId", transactionId);
+            MDC.put("className", className);
+            MDC.put("methodName", methodName);
+            try {
+                logTransactionState(OperationState.STARTED, className, methodName, transactionId, httpInfo, args);
+                logTransactionState(OperationState.IN_PROGRESS, className, methodName, transactionId, httpInfo, null);
+                Object result = joinPoint.proceed();
+                long duration = System.currentTimeMillis() - startTime;
+                logTransactionState(OperationState.COMPLETED, className, methodName, transactionId,
+                        "Duration: " + duration + "ms", result);
+                return result;
+            } catch (Exception e) {
+                long duration = System.currentTimeMillis() - startTime;
+                String errorInfo = "Duration: " + duration + "ms | Error: " + e.getMessage();
+                logTransactionState(e instanceof RuntimeException ? OperationState.WARNING : OperationState.ERROR,
+                        className, methodName, transactionId, errorInfo, null);
+                throw e;
+            } finally {
+                long totalDuration = System.currentTimeMillis() - startTime;
+                logTransactionState(OperationState.TERMINATED, className, methodName, transactionId,
+                        "Total Duration: " + totalDuration + "ms", null);
+                MDC.clear();
+            }
+        }
+
+        private void logTransactionState(OperationState state, String className, String methodName,
+                                         String transactionId, String contextInfo, Object details) {
+            String timestamp = Instant.now().toString();
+            String message = String.format("🏷️  TXN[%s] | %s %s: %s.%s | ⏰ %s | 📍 %s",
+                    transactionId, state.emoji, state.description,
+                    className.substring(className.lastIndexOf('.') + 1), methodName, timestamp,
+                    contextInfo != null ? contextInfo : "");
+            switch (state) {
+                case ERROR -> logger.error(message + (details != null ? " | 📄 Details: {}" : ""), details);
+                case WARNING -> logger.warn(message + (details != null ? " | 📄 Details: {}" : ""), details);
+                default -> logger.info(message + (details != null ? " | 📄 Details: {}" : ""),
+                        details != null ? sanitizeForLog(details) : "");
+            }
+        }
+
+        private static String getOrCreateTransactionId() {
+            String existingId = MDC.get("transactionId");
+            if (existingId != null) {
+                return existingId;
+            }
+            return "TXN-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        }
+
+        private static Object sanitizeForLog(Object data) {
+            String str = data.toString();
+            if (str.toLowerCase().contains("password")) {
+                return "***SENSITIVE_DATA_HIDDEN***";
+            }
+            return str.length() > 200 ? str.substring(0, 200) + "..." : str;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package IBM.Colombia.Cia.S.C.A.IBM.benchmark;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+import org.aspectj.runtime.internal.AroundClosure;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * Join point mínimo para invocar un @Around fuera de Spring: proceed() devuelve un resultado fijo
+ * sin pasar por un proxy, de modo que el benchmark mide solo el coste del aspecto.
+ */
+final class StubJoinPoint implements ProceedingJoinPoint {
+
+    private final Method method;
+    private final String[] parameterNames;
+    private final Object[] args;
+    private final Object result;
+    private final MethodSignature signature = new StubSignature();
+
+    StubJoinPoint(Method method, String[] parameterNames, Object[] args, Object result) {
+        this.method = method;
+        this.parameterNames = parameterNames;
+        this.args = args;
+        this.result = result;
+    }
+
+    @Override
+    public Object proceed() {
+        return result;
+    }
+
+    @Override
+    public Object proceed(Object[] newArgs) {
+        return result;
+    }
+
+    @Override
+    public void set$AroundClosure(AroundClosure arc) {
+    }
+
+    @Override
+    public String toShortString() {
+        return method.getName();
+    }
+
+    @Override
+    public String toLongString() {
+        return method.toString();
+    }
+
+    @Override
+    public Object getThis() {
+        return null;
+    }
+
+    @Override
+    public Object getTarget() {
+        return null;
+    }
+
+    @Override
+    public Object[] getArgs() {
+        return args.clone();
+    }
+
+    @Override
+    public Signature getSignature() {
+        return signature;
+    }
+
+    @Override
+    public SourceLocation getSourceLocation() {
+        return null;
+    }
+
+    @Override
+    public String getKind() {
+        return METHOD_EXECUTION;
+    }
+
+    @Override
+    public StaticPart getStaticPart() {
+        return null;
+    }
+
+    private final class StubSignature implements MethodSignature {
+
+        @Override
+        public Class getReturnType() {
+            return method.getReturnType();
+        }
+
+        @Override
+        public Method getMethod() {
+            return method;
+        }
+
+        @Override
+        public Class[] getParameterTypes() {
+            return method.getParameterTypes();
+        }
+
+        @Override
+        public String[] getParameterNames() {
+            return parameterNames;
+        }
+
+        @Override
+        public Class[] getExceptionTypes() {
+            return method.getExceptionTypes();
+        }
+
+        @Override
+        public String toShortString() {
+            return method.getName();
+        }
+
+        @Override
+        public String toLongString() {
+            return method.toString();
+        }
+
+        @Override
+        public String getName() {
+            return method.getName();
+        }
+
+        @Override
+        public int getModifiers() {
+            return Modifier.PUBLIC;
+        }
+
+        @Override
+        public Class getDeclaringType() {
+            return method.getDeclaringClass();
+        }
+
+        @Override
+        public String getDeclaringTypeName() {
+            return method.getDeclaringClass().getName();
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience;
+
+import IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience.CircuitBreaker.State;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Transiciones CLOSED → OPEN → HALF_OPEN → CLOSED/OPEN del CircuitBreaker.
+ * Las esperas son cortas porque el circuito usa el reloj real.
+ */
+class CircuitBreakerTest {
+
+    private static final long FAST = 1_000_000L;
+    private static final long SLOW = 80_000_000L;
+    private static final long OPEN_MS = 100;
+
+    // Ventana de 10, mínimo 4 llamadas, 50% de fallos o lentas, lenta desde 50 ms, 2 pruebas
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 50, 50, 50, OPEN_MS, 2, 200);
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, breaker.tryAcquirePermission());
+            breaker.onFailure(FAST);
+        }
+
+        assertEquals(State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void opensAtFailureRateThreshold() {
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onFailure(FAST);
+        assertEquals(State.CLOSED, breaker.getState());
+
+        breaker.onFailure(FAST);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(1L, breaker.getMetrics().get("opened"));
+    }
+
+    @Test
+    void opensAtSlowCallRateThreshold() {
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(FAST);
+        breaker.onSuccess(SLOW);
+        breaker.onSuccess(SLOW);
+
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        CircuitBreaker small = new CircuitBreaker("test", 4, 4, 50, 100, 50, OPEN_MS, 1, 200);
+        small.onFailure(FAST);
+        for (int i = 0; i < 6; i++) {
+            small.onSuccess(FAST);
+        }
+
+        // El fallo ya salió de la ventana: 1 de 4 no llega al 50%
+        small.onFailure(FAST);
+
+        assertEquals(State.CLOSED, small.getState());
+        assertEquals(25, small.getMetrics().get("failureRate"));
+    }
+
+    @Test
+    void rejectsWhileOpenWithRemainingTime() {
+        trip();
+
+        long waitMs = breaker.tryAcquirePermission();
+
+        assertTrue(waitMs > 0 && waitMs <= OPEN_MS, "espera " + waitMs);
+        assertEquals(1L, breaker.getMetrics().get("notPermitted"));
+    }
+
+    @Test
+    void ignoresOutcomesRecordedWhileOpen() {
+        trip();
+
+        for (int i = 0; i < 10; i++) {
+            breaker.onSuccess(FAST);
+        }
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertEquals(0, breaker.getMetrics().get("bufferedCalls"));
+    }
+
+    @Test
+    void halfOpenLimitsProbesAndClosesAfterSuccess() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MS + 20);
+
+        assertEquals(0, breaker.tryAcquirePermission());
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        assertEquals(0, breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission() > 0, "solo se permiten 2 pruebas");
+
+        breaker.onSuccess(FAST);
+        assertEquals(State.HALF_OPEN, breaker.getState());
+        breaker.onSuccess(FAST);
+
+        assertEquals(State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getMetrics().get("bufferedCalls"));
+    }
+
+    @Test
+    void failedProbeReopens() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MS + 20);
+        assertEquals(0, breaker.tryAcquirePermission());
+
+        breaker.onFailure(FAST);
+
+        assertEquals(State.OPEN, breaker.getState());
+        assertTrue(breaker.tryAcquirePermission() > 0);
+        assertEquals(2L, breaker.getMetrics().get("opened"));
+    }
+
+    @Test
+    void slowProbeReopens() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MS + 20);
+        assertEquals(0, breaker.tryAcquirePermission());
+
+        breaker.onSuccess(SLOW);
+
+        assertEquals(State.OPEN, breaker.getState());
+    }
+
+    @Test
+    void releasedPermissionReturnsTheProbe() throws InterruptedException {
+        trip();
+        Thread.sleep(OPEN_MS + 20);
+        assertEquals(0, breaker.tryAcquirePermission());
+        assertEquals(0, breaker.tryAcquirePermission());
+
+        breaker.releasePermission();
+
+        assertEquals(0, breaker.tryAcquirePermission());
+        assertTrue(breaker.tryAcquirePermission() > 0);
+    }
+
+    @Test
+    void lostProbesAreReissuedAfterTimeout() throws InterruptedException {
+        CircuitBreaker quick = new CircuitBreaker("test", 10, 4, 50, 50, 50, OPEN_MS, 1, 50);
+        for (int i = 0; i < 4; i++) {
+            quick.onFailure(FAST);
+        }
+        Thread.sleep(OPEN_MS + 20);
+        assertEquals(0, quick.tryAcquirePermission());
+        assertTrue(quick.tryAcquirePermission() > 0);
+
+        // La prueba emitida nunca informa resultado
+        Thread.sleep(70);
+
+        assertEquals(0, quick.tryAcquirePermission());
+        quick.onSuccess(FAST);
+        assertEquals(State.CLOSED, quick.getState());
+    }
+
+    private void trip() {
+        for (int i = 0; i < 4; i++) {
+            breaker.onFailure(FAST);
+        }
+        assertEquals(State.OPEN, breaker.getState());
+    }
+}
@@ -0,0 +1,121 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cálculo GCRA del TokenBucketLimiter: ráfaga de "capacity", una ficha cada period/capacity
+ * y comportamiento con el mapa de claves lleno.
+ */
+class TokenBucketLimiterTest {
+
+    @Test
+    void allowsBurstThenReportsWait() {
+        // 5 fichas por segundo: intervalo de 200 ms
+        TokenBucketLimiter limiter = new TokenBucketLimiter(5, Duration.ofSeconds(1), 100, Duration.ofMinutes(1));
+        for (int i = 0; i < 5; i++) {
+            assertEquals(0, limiter.tryAcquire("ana"), "petición " + i);
+        }
+
+        long waitNanos = limiter.tryAcquire("ana");
+
+        long interval = Duration.ofMillis(200).toNanos();
+        assertTrue(waitNanos > interval - Duration.ofMillis(100).toNanos() && waitNanos <= interval,
+                "espera " + waitNanos);
+        assertEquals(5L, limiter.getMetrics().get("allowed"));
+        assertEquals(1L, limiter.getMetrics().get("rejected"));
+    }
+
+    @Test
+    void rejectionDoesNotConsumeTokens() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofSeconds(1), 100, Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire("ana"));
+
+        long first = limiter.tryAcquire("ana");
+        long second = limiter.tryAcquire("ana");
+
+        // La espera no crece con los rechazos: solo avanza el reloj
+        assertTrue(second <= first, first + " / " + second);
+    }
+
+    @Test
+    void refillsOneTokenPerInterval() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofMillis(100), 100, Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertTrue(limiter.tryAcquire("ana") > 0);
+
+        Thread.sleep(60);
+
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertTrue(limiter.tryAcquire("ana") > 0);
+    }
+
+    @Test
+    void idleBucketDoesNotAccumulateBeyondCapacity() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(2, Duration.ofMillis(50), 100, Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire("ana"));
+
+        Thread.sleep(200);
+
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertTrue(limiter.tryAcquire("ana") > 0);
+    }
+
+    @Test
+    void keysHaveIndependentBuckets() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofSeconds(1), 100, Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertTrue(limiter.tryAcquire("ana") > 0);
+
+        assertEquals(0, limiter.tryAcquire("luis"));
+    }
+
+    @Test
+    void fullMapFailsOpenForNewKeys() {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofSeconds(1), 2, Duration.ofMinutes(1));
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertEquals(0, limiter.tryAcquire("luis"));
+
+        // Sin sitio ni barrido permitido: se deja pasar sin crear un cubo compartido
+        assertEquals(0, limiter.tryAcquire("eva"));
+        assertEquals(0, limiter.tryAcquire("eva"));
+
+        assertTrue(limiter.tryAcquire("ana") > 0);
+        assertEquals(2, limiter.getMetrics().get("buckets"));
+        assertEquals(2L, limiter.getMetrics().get("overflowed"));
+    }
+
+    @Test
+    void fullMapSweepsExpiredBuckets() throws InterruptedException {
+        TokenBucketLimiter limiter = new TokenBucketLimiter(1, Duration.ofMillis(50), 2, Duration.ofMillis(200));
+        assertEquals(0, limiter.tryAcquire("ana"));
+        assertEquals(0, limiter.tryAcquire("luis"));
+
+        // Los dos cubos vuelven a estar llenos y ya pasó sweepInterval/10 desde el último barrido
+        Thread.sleep(80);
+        assertEquals(0, limiter.tryAcquire("eva"));
+
+        assertEquals(1L, limiter.getMetrics().get("forcedSweeps"));
+        assertEquals(2L, limiter.getMetrics().get("expired"));
+        assertEquals(1, limiter.getMetrics().get("buckets"));
+        assertEquals(0L, limiter.getMetrics().get("overflowed"));
+        assertTrue(limiter.tryAcquire("eva") > 0);
+    }
+
+    @Test
+    void rejectsInvalidLimits() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketLimiter(0, Duration.ofSeconds(1), 10, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketLimiter(5, Duration.ZERO, 10, Duration.ofMinutes(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new TokenBucketLimiter(5, Duration.ofSeconds(-1), 10, Duration.ofMinutes(1)));
+    }
+}
@@ -0,0 +1,152 @@
+package IBM.Colombia.Cia.S.C.A.IBM.infrastructure.soap.client;
+
+import IBM.Colombia.Cia.S.C.A.IBM.application.dto.response.ProfilePhoto;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Decodificación incremental de StreamingAuthSoapClient.PhotoBuffer: el resultado no puede
+ * depender de dónde corta el parser StAX el texto del elemento.
+ */
+class PhotoBufferTest {
+
+    // Cabecera PNG real más unos bytes: el tipo se puede detectar por contenido
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 1, 2, 3, (byte) 0xFF};
+
+    private final StreamingAuthSoapClient.PhotoBuffer buffer = new StreamingAuthSoapClient.PhotoBuffer();
+
+    @Test
+    void decodesDataUriInOneChunk() {
+        ProfilePhoto photo = decode("data:image/png;base64," + base64(PNG));
+
+        assertTrue(photo.isBinary());
+        assertEquals("image/png", photo.getMimeType());
+        assertArrayEquals(PNG, photo.getData());
+    }
+
+    @Test
+    void dataUriSplitAtEveryPosition() {
+        // Cubre cortes dentro de "data:", dentro de la cabecera, en la coma y en el contenido
+        String text = "data:image/gif;base64," + base64(PNG);
+        for (int cut = 0; cut <= text.length(); cut++) {
+            ProfilePhoto photo = decode(text.substring(0, cut), text.substring(cut));
+
+            assertEquals("image/gif", photo.getMimeType(), "corte en " + cut);
+            assertArrayEquals(PNG, photo.getData(), "corte en " + cut);
+        }
+    }
+
+    @Test
+    void dataUriSplitIntoSingleCharacters() {
+        String text = "data:image/png;base64," + base64(PNG);
+
+        ProfilePhoto photo = decode(text.split(""));
+
+        assertEquals("image/png", photo.getMimeType());
+        assertArrayEquals(PNG, photo.getData());
+    }
+
+    @Test
+    void pureBase64SplitAtEveryPosition() {
+        String text = base64(PNG);
+        for (int cut = 0; cut <= text.length(); cut++) {
+            ProfilePhoto photo = decode(text.substring(0, cut), text.substring(cut));
+
+            assertEquals("image/png", photo.getMimeType(), "corte en " + cut);
+            assertArrayEquals(PNG, photo.getData(), "corte en " + cut);
+        }
+    }
+
+    @Test
+    void pureBase64StartingLikeTheDataPrefix() {
+        // "data" es Base64 válido: al no llegar ':' lo acumulado se decodifica como contenido
+        byte[] data = Base64.getDecoder().decode("dataAQID");
+        for (int cut = 0; cut <= 8; cut++) {
+            ProfilePhoto photo = decode("dataAQID".substring(0, cut), "dataAQID".substring(cut));
+
+            assertArrayEquals(data, photo.getData(), "corte en " + cut);
+        }
+    }
+
+    @Test
+    void paddingProducesTrailingBytes() {
+        for (int length = 1; length <= 6; length++) {
+            byte[] data = new byte[length];
+            for (int i = 0; i < length; i++) {
+                data[i] = (byte) (0xA0 + i);
+            }
+            String text = base64(data);
+
+            assertArrayEquals(data, decode(text).getData(), text);
+            assertArrayEquals(data, decode("data:image/png;base64," + text).getData(), text);
+        }
+    }
+
+    @Test
+    void ignoresWhitespaceAndLineBreaks() {
+        byte[] data = new byte[300];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        String wrapped = Base64.getMimeEncoder().encodeToString(data);
+
+        ProfilePhoto photo = decode("\n  data:image/png;base64,", wrapped.substring(0, 100), " \t", wrapped.substring(100), "\r\n");
+
+        assertArrayEquals(data, photo.getData());
+    }
+
+    @Test
+    void prefixIsCaseInsensitive() {
+        ProfilePhoto photo = decode("DATA:image/png;BASE64," + base64(PNG));
+
+        assertEquals("image/png", photo.getMimeType());
+        assertArrayEquals(PNG, photo.getData());
+    }
+
+    @Test
+    void oversizedHeaderFallsBackToContentType() {
+        String header = "data:image/gif;" + "x".repeat(500) + ";base64,";
+
+        ProfilePhoto photo = decode(header.substring(0, 200), header.substring(200) + base64(PNG));
+
+        assertEquals("image/png", photo.getMimeType());
+        assertArrayEquals(PNG, photo.getData());
+    }
+
+    @Test
+    void emptyElementKeepsEmptyString() {
+        ProfilePhoto photo = decode(" \n ");
+
+        assertFalse(photo.isBinary());
+        assertEquals("", photo.toDataUri());
+    }
+
+    @Test
+    void resetClearsPreviousState() {
+        decode("data:image/gif;base64,R0lG");
+
+        ProfilePhoto photo = decode(base64(PNG));
+
+        assertEquals("image/png", photo.getMimeType());
+        assertArrayEquals(PNG, photo.getData());
+    }
+
+    private ProfilePhoto decode(String... chunks) {
+        buffer.reset();
+        for (String chunk : chunks) {
+            char[] chars = chunk.toCharArray();
+            buffer.decode(chars, 0, chars.length);
+        }
+        return buffer.toPhoto();
+    }
+
+    private static String base64(byte[] data) {
+        return Base64.getEncoder().encodeToString(data);
+    }
+}
@@ -24,6 +24,7 @@ export class UserProfileResponseDto {
     public lastName?: string,
     public age?: string,
     public profilePhoto?: string,
-    public video?: string
+    public video?: string,
+    public avatarUrl?: string
   ) { }
 }
@@ -29,7 +29,11 @@ export class WelcomeComponent implements OnInit {
         firstName: informacion.userInformation?.firstName,
         lastName: informacion.userInformation?.lastName,
         age: informacion.userInformation?.age,
-        profilePhoto: informacion.userInformation?.profilePhoto,
+        // avatarUrl apunta a /api/users/{id}/avatar; profilePhoto solo llega en modo inline.
+        // 256 px cubre el avatar de 120 px en pantallas de alta densidad
+        profilePhoto: informacion.userInformation?.avatarUrl
+          ? `${informacion.userInformation.avatarUrl}?size=256`
+          : informacion.userInformation?.profilePhoto,
         video: informacion.userInformation?.video
       };
     }